@@ -14,9 +14,24 @@ repositories {
     maven("https://maven.hytale-modding.info/releases/")
 }
 
+// The server provides these at runtime, tests need them on their own classpath
+configurations.testImplementation {
+    extendsFrom(configurations.compileOnly.get())
+}
+
 dependencies {
     compileOnly(libs.hytale)
     compileOnly(libs.shodo)
     compileOnly(libs.multiplehud)
     compileOnly(libs.levelingcore)
+
+    testImplementation(platform(libs.junit.bom))
+    testImplementation(libs.junit.jupiter)
+    testImplementation(libs.mockito)
+    testImplementation(libs.gson)
+    testRuntimeOnly(libs.junit.platform.launcher)
+}
+
+tasks.test {
+    useJUnitPlatform()
 }
@@ -0,0 +1,29 @@
+plugins {
+    id("java")
+    id("application")
+}
+
+group = "cc.irori"
+version = "1.0-SNAPSHOT"
+
+repositories {
+    mavenCentral()
+}
+
+dependencies {
+    implementation(libs.gson)
+}
+
+// The maintenance passes are shared with the plugin as sources, they only need Gson
+sourceSets {
+    main {
+        java {
+            srcDir(rootProject.file("src/main/java"))
+            include("cc/irori/core/maintenance/**", "cc/irori/core/cli/**")
+        }
+    }
+}
+
+application {
+    mainClass.set("cc.irori.core.cli.MaintenanceCli")
+}
@@ -0,0 +1,145 @@
+package cc.irori.core.cli;
+
+import cc.irori.core.maintenance.JsonArrayFilter;
+import cc.irori.core.maintenance.LevelMigration;
+import cc.irori.core.maintenance.PlayerIndex;
+import cc.irori.core.maintenance.TeleporterCleanup;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs the maintenance passes against a {@code universe/} directory while the server is stopped.
+ * <p>
+ * Live worlds are the folders under {@code universe/worlds}. The passes run in parallel and a timing
+ * report is printed once all of them finish. Level data can only be scanned here, since writing it
+ * needs LevelingCore and stays with {@code /migratelevel}.
+ */
+public final class MaintenanceCli {
+
+    private static final String USAGE = "Usage: maintenance-cli <universe dir> [teleporters] [levels]";
+
+    // Private constructor to prevent instantiation
+    private MaintenanceCli() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        Path universeDir = Path.of(args[0]);
+        if (!Files.isDirectory(universeDir)) {
+            System.err.println("Not a directory: " + universeDir);
+            System.exit(2);
+        }
+
+        Set<String> passes = new LinkedHashSet<>();
+        for (int i = 1; i < args.length; i++) {
+            if (!args[i].equals("teleporters") && !args[i].equals("levels")) {
+                System.err.println("Unknown pass: " + args[i]);
+                System.err.println(USAGE);
+                System.exit(2);
+            }
+            passes.add(args[i]);
+        }
+        if (passes.isEmpty()) {
+            passes.add("teleporters");
+            passes.add("levels");
+        }
+
+        long start = System.nanoTime();
+        Set<String> liveWorlds = readLiveWorlds(universeDir.resolve("worlds"));
+        if (passes.contains("teleporters") && liveWorlds.isEmpty()) {
+            // An empty set would drop every teleporter, which is never what a stopped server wants
+            System.err.println("No worlds found in " + universeDir.resolve("worlds") + ", refusing to clean teleporters");
+            System.exit(1);
+        }
+        System.out.printf("Found %d worlds: %s%n", liveWorlds.size(), String.join(", ", liveWorlds));
+
+        Future<JsonArrayFilter.Result> teleporters = null;
+        Future<JsonArrayFilter.Result> warps = null;
+        Future<LevelMigration.Summary> levels = null;
+        boolean failed = false;
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            if (passes.contains("teleporters")) {
+                teleporters = executor.submit(() -> TeleporterCleanup.cleanTeleporters(universeDir, liveWorlds));
+                warps = executor.submit(() -> TeleporterCleanup.cleanWarps(universeDir, liveWorlds));
+            }
+            if (passes.contains("levels")) {
+                Path playersDir = universeDir.resolve("players");
+                PlayerIndex index = new PlayerIndex(playersDir, universeDir.resolve("players.idx"));
+                Callable<LevelMigration.Summary> scan = () -> {
+                    index.load();
+                    return new LevelMigration(null, index, universeDir.resolve("MigrateLevel.journal"), true,
+                            System.out::println, () -> false).run();
+                };
+                levels = Files.isDirectory(playersDir) ? executor.submit(scan) : null;
+            }
+
+            failed |= report("ExtendedTeleportHistory teleporters", teleporters);
+            failed |= report("Vanilla warps", warps);
+            failed |= reportLevels(levels);
+        }
+
+        System.out.printf("Finished in %.2fs%n", (System.nanoTime() - start) / 1_000_000_000.0D);
+        System.exit(failed ? 1 : 0);
+    }
+
+    private static Set<String> readLiveWorlds(Path worldsDir) throws IOException {
+        Set<String> worlds = new TreeSet<>();
+        if (!Files.isDirectory(worldsDir)) {
+            return worlds;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(worldsDir, Files::isDirectory)) {
+            for (Path dir : stream) {
+                worlds.add(dir.getFileName().toString());
+            }
+        }
+        return worlds;
+    }
+
+    private static boolean report(String name, Future<JsonArrayFilter.Result> future) throws InterruptedException {
+        if (future == null) {
+            return false;
+        }
+        try {
+            JsonArrayFilter.Result result = future.get();
+            System.out.printf("%s: removed %d of %d in %.2fs (%.0f entries/s, %.2f MB/s)%n",
+                    name, result.removed(), result.kept() + result.removed(),
+                    result.seconds(), result.entriesPerSecond(), result.megabytesPerSecond());
+            return false;
+        } catch (ExecutionException e) {
+            System.err.println(name + " failed: " + e.getCause());
+            return true;
+        }
+    }
+
+    private static boolean reportLevels(Future<LevelMigration.Summary> future) throws InterruptedException {
+        if (future == null) {
+            return false;
+        }
+        try {
+            LevelMigration.Summary summary = future.get();
+            System.out.printf("Level data: %d to migrate, %d without level data, %d failed, %d already migrated in %.2fs (%.0f files/s)%n",
+                    summary.migrated(), summary.skipped(), summary.failed(), summary.resumed(),
+                    summary.nanos() / 1_000_000_000.0D, summary.filesPerSecond());
+            return summary.failed() > 0;
+        } catch (ExecutionException e) {
+            System.err.println("Level data scan failed: " + e.getCause());
+            return true;
+        }
+    }
+}
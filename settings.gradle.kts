@@ -1 +1,3 @@
-rootProject.name = "core"
\ No newline at end of file
+rootProject.name = "core"
+
+include("maintenance-cli")
@@ -1,15 +1,22 @@
 package cc.irori.core;
 
 import cc.irori.core.command.*;
-import cc.irori.shodo.ShodoAPI;
+import cc.irori.core.diagnostics.FlightRecording;
+import cc.irori.core.diagnostics.WorldWatchdog;
+import cc.irori.core.diagnostics.event.PlayerHandlerEvent;
+import cc.irori.core.job.JobManager;
+import cc.irori.core.message.Messages;
+import cc.irori.core.maintenance.PlayerIndex;
+import cc.irori.core.metrics.Metrics;
+import cc.irori.core.metrics.MetricsExporter;
+import cc.irori.core.session.PlayerSession;
+import cc.irori.core.session.SessionRegistry;
+import cc.irori.core.session.SessionState;
 import com.hypixel.hytale.component.Holder;
 import com.hypixel.hytale.component.Ref;
 import com.hypixel.hytale.component.Store;
 import com.hypixel.hytale.logger.HytaleLogger;
 import com.hypixel.hytale.math.vector.Transform;
-import com.hypixel.hytale.server.core.HytaleServer;
-import com.hypixel.hytale.server.core.Message;
-import com.hypixel.hytale.server.core.ShutdownReason;
 import com.hypixel.hytale.server.core.entity.entities.Player;
 import com.hypixel.hytale.server.core.entity.entities.player.data.PlayerConfigData;
 import com.hypixel.hytale.server.core.event.events.player.AddPlayerToWorldEvent;
@@ -19,94 +26,196 @@ import com.hypixel.hytale.server.core.event.events.player.PlayerReadyEvent;
 import com.hypixel.hytale.server.core.modules.entity.component.HeadRotation;
 import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
 import com.hypixel.hytale.server.core.modules.entitystats.EntityStatMap;
-import com.hypixel.hytale.server.core.modules.entitystats.EntityStatValue;
 import com.hypixel.hytale.server.core.modules.entitystats.asset.DefaultEntityStatTypes;
-import com.hypixel.hytale.server.core.modules.entitystats.modifier.Modifier;
 import com.hypixel.hytale.server.core.plugin.JavaPlugin;
 import com.hypixel.hytale.server.core.plugin.JavaPluginInit;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
 import com.hypixel.hytale.server.core.universe.Universe;
 import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.events.AddWorldEvent;
+import com.hypixel.hytale.server.core.universe.world.events.RemoveWorldEvent;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 import org.checkerframework.checker.nullness.compatqual.NonNullDecl;
 
 import javax.annotation.Nullable;
+import java.nio.file.Path;
 import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
-import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.List;
 
 public class CorePlugin extends JavaPlugin {
 
     private static final HytaleLogger LOGGER = Logs.logger();
 
-    private static final String DISCORD_INVITE = "ajFSfjbpcX";
-
     private static final List<Integer> RESTART_HOURS = List.of(2, 14);
     private static final List<Integer> ANNOUNCE_SECONDS = List.of(1800, 600, 300, 240, 180, 120, 60, 30, 10, 5, 4, 3, 2, 1);
 
-    private static final Message SPACE = Message.raw(" ");
+    private static final ServerHealthMonitor.Thresholds HEALTH_THRESHOLDS = new ServerHealthMonitor.Thresholds(
+            0.85D, 3,
+            500, 5, Duration.ofMinutes(10),
+            Duration.ofMinutes(10).plusSeconds(30),
+            0.5D, 60, Duration.ofHours(1), 2,
+            Duration.ofMinutes(35)
+    );
 
-    private static final ZoneId TZ = ZoneId.of("Asia/Tokyo");
+    private static final long WATCHDOG_PROBE_INTERVAL_MILLIS = 1000;
+    private static final long WATCHDOG_STALL_THRESHOLD_MILLIS = 5000;
+    private static final int WATCHDOG_MAX_STALL_DUMPS = 16;
+
+    private static final ShigenWarmup.Settings WARMUP_SETTINGS = new ShigenWarmup.Settings(12, 4, 16, 50);
+
+    private static final ShigenRetirement.Settings RETIREMENT_SETTINGS = new ShigenRetirement.Settings(1, 5, 120, 30, 4, 2000);
+
+    private static final IdleManager.Settings IDLE_SETTINGS = new IdleManager.Settings(Duration.ofMinutes(10), Duration.ofHours(2), Duration.ofHours(2), 30);
+
+    private static final long SPAWN_PIN_REFRESH_SECONDS = 20;
+
+    private static final Path UNIVERSE_DIR = Path.of("universe");
+    private static final Path PLAYERS_DIR = UNIVERSE_DIR.resolve("players");
+    private static final Path PLAYER_INDEX_FILE = UNIVERSE_DIR.resolve("players.idx");
+    private static final long PLAYER_INDEX_REFRESH_MINUTES = 10;
+
+    private static final long TELEPORTER_PRUNE_GRACE_SECONDS = 30;
+
+    private static final long TELEPORT_TICK_MILLIS = 50;
+    private static final int TELEPORTS_PER_TICK = 4;
 
-    private final ScheduledExecutorService emptyRestartExecutor = Executors.newScheduledThreadPool(1);
-    private final ScheduledExecutorService scheduledRestartExecutor = Executors.newSingleThreadScheduledExecutor();
+    private static final long DEFERRED_TICK_MILLIS = 50;
+    private static final long DEFERRED_BUDGET_MICROS = 2000;
 
-    private final Set<UUID> onlinePlayers = new HashSet<>();
-    private final Set<UUID> joiningPlayers = new HashSet<>();
+    private static final int JOBS_MAX_CONCURRENT = 2;
+    private static final int JOBS_MAX_QUEUED = 8;
+    private static final int JOBS_MAX_FINISHED = 20;
 
-    private final Map<UUID, ShigenHud> shigenHuds = new ConcurrentHashMap<>();
+    private static final Duration RECORDING_MAX_AGE = Duration.ofMinutes(30);
+    private static final long RECORDING_MAX_SIZE_BYTES = 256L * 1024 * 1024;
 
-    private static Set<Integer> statIndexes;
+    private static final int METRICS_PORT = 9464;
+    private static final long METRICS_SNAPSHOT_INTERVAL_SECONDS = 60;
+
+    private static final long ANNOUNCE_WINDOW_MILLIS = 2000;
+    private static final int ANNOUNCE_MAX_SENDS_PER_SECOND = 400;
+
+    private static final ZoneId TZ = ZoneId.of("Asia/Tokyo");
+
+    private final RestartScheduler restartScheduler = new RestartScheduler(ANNOUNCE_SECONDS);
+    private final ServerHealthMonitor healthMonitor = new ServerHealthMonitor(restartScheduler, HEALTH_THRESHOLDS);
+    private final WorldRegistry worldRegistry = new WorldRegistry();
+    private final WorldWatchdog worldWatchdog = new WorldWatchdog(WATCHDOG_PROBE_INTERVAL_MILLIS, WATCHDOG_STALL_THRESHOLD_MILLIS, WATCHDOG_MAX_STALL_DUMPS);
+    private final ShigenWarmup shigenWarmup = new ShigenWarmup(worldRegistry, worldWatchdog, WARMUP_SETTINGS);
+    private final SpawnCache spawnCache = new SpawnCache(SPAWN_PIN_REFRESH_SECONDS);
+    private final TeleportDispatcher teleportDispatcher = new TeleportDispatcher(TELEPORT_TICK_MILLIS, TELEPORTS_PER_TICK);
+    private final PlayerIndexRefresher playerIndexRefresher = new PlayerIndexRefresher(PLAYERS_DIR, PLAYER_INDEX_FILE, PLAYER_INDEX_REFRESH_MINUTES);
+    private final TeleporterPruner teleporterPruner = new TeleporterPruner(UNIVERSE_DIR, TELEPORTER_PRUNE_GRACE_SECONDS);
+    private final ShigenRetirement shigenRetirement = new ShigenRetirement(worldRegistry, teleportDispatcher, spawnCache, teleporterPruner, UNIVERSE_DIR, RETIREMENT_SETTINGS);
+    private final DeferredWork deferredWork = new DeferredWork(DEFERRED_TICK_MILLIS, DEFERRED_BUDGET_MICROS);
+    private final JobManager jobs = new JobManager(JOBS_MAX_CONCURRENT, JOBS_MAX_QUEUED, JOBS_MAX_FINISHED);
+    private final JoinAnnouncer joinAnnouncer = new JoinAnnouncer(ANNOUNCE_WINDOW_MILLIS, ANNOUNCE_MAX_SENDS_PER_SECOND);
+    private MetricsExporter metricsExporter;
+    private FlightRecording flightRecording;
+    private ModifierPurge modifierPurge;
+
+    private final SessionRegistry sessions = new SessionRegistry();
+    private final IdleManager idleManager = new IdleManager(sessions, worldRegistry, restartScheduler, spawnCache, IDLE_SETTINGS);
+
+    private static CorePlugin instance;
 
     public CorePlugin(@NonNullDecl JavaPluginInit init) {
         super(init);
+        instance = this;
+    }
+
+    public static CorePlugin get() {
+        return instance;
     }
 
     @Override
     protected void start() {
         LOGGER.atInfo().log("Welcome to Irori-Manager :)");
 
-        statIndexes = Set.of(
+        modifierPurge = new ModifierPurge(getDataDirectory().resolve("purged-players.bin"),
                 DefaultEntityStatTypes.getHealth(),
                 DefaultEntityStatTypes.getOxygen(),
                 DefaultEntityStatTypes.getStamina(),
                 DefaultEntityStatTypes.getSignatureEnergy(),
                 DefaultEntityStatTypes.getAmmo()
         );
+        modifierPurge.load();
+        flightRecording = new FlightRecording(getDataDirectory().resolve("recordings"), RECORDING_MAX_AGE, RECORDING_MAX_SIZE_BYTES);
+
+        // Track worlds that are already loaded, then keep the registry up to date
+        for (World world : Universe.get().getWorlds().values()) {
+            worldRegistry.add(world);
+        }
+        getEventRegistry().registerGlobal(AddWorldEvent.class, event -> {
+            World world = event.getWorld();
+            // A new newest shigen world stays hidden from /shigen until its spawn area is warm
+            int shigenId = WorldRegistry.parseShigenId(world.getName());
+            boolean warmUp = shigenId > worldRegistry.getHighestShigenId();
+            if (warmUp) {
+                worldRegistry.markWarming(world.getName());
+            }
+            worldRegistry.add(world);
+            if (warmUp) {
+                shigenWarmup.start(world);
+            }
+        });
+        getEventRegistry().registerGlobal(RemoveWorldEvent.class, event -> {
+            shigenWarmup.forget(event.getWorld());
+            spawnCache.invalidate(event.getWorld());
+            teleportDispatcher.forget(event.getWorld());
+            deferredWork.forget(event.getWorld());
+            teleporterPruner.worldRemoved(event.getWorld().getName());
+            WorldRegistry.WorldInfo info = worldRegistry.remove(event.getWorld());
+            if (info != null && info.isShigen()) {
+                ShigenHudContent.evict(info.shigenId());
+            }
+        });
 
         // Add currently online players
         for (PlayerRef ref : Universe.get().getPlayers()) {
-            onlinePlayers.add(ref.getUuid());
+            PlayerSession session = sessions.adopt(ref.getUuid(), ref.getUsername());
+            if (session == null) {
+                continue;
+            }
 
             Store<EntityStore> store = ref.getReference().getStore();
             store.getExternalData().getWorld().execute(() -> {
                 Player player = store.getComponent(ref.getReference(), Player.getComponentType());
-                shigenHuds.put(ref.getUuid(), new ShigenHud(player, ref));
+                session.setShigenHud(new ShigenHud(player, ref));
             });
         }
 
-        scheduleNextRestart();
+        restartScheduler.schedule(getNextRestart().atZone(TZ).toInstant());
+        healthMonitor.start();
+        worldWatchdog.start();
+        spawnCache.start();
+        teleportDispatcher.start();
+        deferredWork.start();
+        playerIndexRefresher.start();
+        teleporterPruner.start();
+        shigenRetirement.start();
+        idleManager.start();
+        registerGauges();
+        metricsExporter = new MetricsExporter(Metrics.REGISTRY, METRICS_PORT, getDataDirectory().resolve("metrics.prom"), METRICS_SNAPSHOT_INTERVAL_SECONDS);
+        metricsExporter.start();
 
         // Send join and leave messages
         getEventRegistry().register(PlayerConnectEvent.class, event -> {
+            long start = System.nanoTime();
+            PlayerHandlerEvent jfrEvent = new PlayerHandlerEvent();
+            jfrEvent.begin();
+            idleManager.playerConnected();
             Holder<EntityStore> holder = event.getHolder();
             Player player = holder.getComponent(Player.getComponentType());
 
-            if (onlinePlayers.add(event.getPlayerRef().getUuid())) {
-                broadcastMessage(event.getPlayerRef().getUsername() + " joined the game");
-                for (PlayerRef ref : Universe.get().getPlayers()) {
-                    if (ref.getUuid() != event.getPlayerRef().getUuid()) {
-                        ShodoAPI.getInstance().sendMessage(ref, event.getPlayerRef().getUsername() + "が参加しました", Colors.YELLOW);
-                    }
-                }
-
-                joiningPlayers.add(event.getPlayerRef().getUuid());
+            // The shigen HUD is built later, once the player's world is ready and has budget for it
+            if (sessions.connect(event.getPlayerRef().getUuid(), event.getPlayerRef().getUsername()) != null) {
+                Metrics.PLAYER_JOINS.increment();
+                joinAnnouncer.joined(event.getPlayerRef().getUuid(), event.getPlayerRef().getUsername());
             }
 
             assert player != null;
@@ -119,7 +228,7 @@ public class CorePlugin extends JavaPlugin {
             if (lastWorld == null && isShigenWorld(lastWorldName)) {
                 World defaultWorld = Universe.get().getDefaultWorld();
 
-                Transform spawn = defaultWorld.getWorldConfig().getSpawnProvider().getSpawnPoint(event.getPlayerRef().getReference(), event.getPlayerRef().getReference().getStore());
+                Transform spawn = spawnCache.getSpawn(defaultWorld, event.getPlayerRef().getReference(), event.getPlayerRef().getReference().getStore());
                 TransformComponent transformComponent = holder.ensureAndGetComponent(TransformComponent.getComponentType());
                 transformComponent.setPosition(spawn.getPosition());
                 transformComponent.setRotation(spawn.getRotation());
@@ -127,26 +236,33 @@ public class CorePlugin extends JavaPlugin {
                 headRotationComponent.teleportRotation(spawn.getRotation());
             }
 
-            shigenHuds.put(event.getPlayerRef().getUuid(), new ShigenHud(player, event.getPlayerRef()));
+            Metrics.CONNECT_HANDLER.recordNanos(System.nanoTime() - start);
+            commit(jfrEvent, "PlayerConnectEvent", event.getPlayerRef().getUsername(), lastWorldName);
         });
         getEventRegistry().register(PlayerDisconnectEvent.class, event -> {
-                if (onlinePlayers.remove(event.getPlayerRef().getUuid())) {
-                    broadcastMessage(event.getPlayerRef().getUsername() + " left the game");
-                    ShodoAPI.getInstance().broadcastMessage(event.getPlayerRef().getUsername() + "が退出しました", Colors.YELLOW);
-
-                    shigenHuds.remove(event.getPlayerRef().getUuid());
+                PlayerHandlerEvent jfrEvent = new PlayerHandlerEvent();
+                jfrEvent.begin();
+                if (sessions.disconnect(event.getPlayerRef().getUuid()) != null) {
+                    Metrics.PLAYER_LEAVES.increment();
+                    joinAnnouncer.left(event.getPlayerRef().getUuid(), event.getPlayerRef().getUsername());
                 }
+                commit(jfrEvent, "PlayerDisconnectEvent", event.getPlayerRef().getUsername(), null);
         });
 
         getEventRegistry().registerGlobal(AddPlayerToWorldEvent.class, event -> {
+            PlayerHandlerEvent jfrEvent = new PlayerHandlerEvent();
+            jfrEvent.begin();
             PlayerRef ref = event.getHolder().getComponent(PlayerRef.getComponentType());
-            ShigenHud shigenHud = shigenHuds.get(ref.getUuid());
+            PlayerSession session = sessions.get(ref.getUuid());
+            ShigenHud shigenHud = session != null ? session.getShigenHud() : null;
 
             if (shigenHud != null) {
-                shigenHud.setShigenId(getShigenId(event.getWorld()));
-                shigenHud.setVisible(isShigenWorld(event.getWorld()));
-                shigenHud.update();
+                WorldRegistry.WorldInfo info = worldRegistry.info(event.getWorld());
+                shigenHud.setShigenId(info.shigenId());
+                shigenHud.setVisible(info.isShigen());
+                shigenHud.update(event.getWorld().getName());
             }
+            commit(jfrEvent, "AddPlayerToWorldEvent", ref.getUsername(), event.getWorld().getName());
         });
 
         getEventRegistry().registerGlobal(PlayerReadyEvent.class, event -> {
@@ -155,57 +271,46 @@ public class CorePlugin extends JavaPlugin {
 
             World world = store.getExternalData().getWorld();
             world.execute(() -> {
+                PlayerHandlerEvent jfrEvent = new PlayerHandlerEvent();
+                jfrEvent.begin();
                 PlayerRef playerRef = store.getComponent(event.getPlayerRef(), PlayerRef.getComponentType());
 
                 assert playerRef != null;
 
-                if (joiningPlayers.remove(playerRef.getUuid())) {
-                    ShodoAPI.getInstance().sendMessage(playerRef, "プレイヤーチャットは、ここに日本語で表示されます。", Colors.GREEN);
-                    ShodoAPI.getInstance().sendMessage(playerRef, "いろり鯖へようこそ！", Colors.GREEN);
-
-                    playerRef.sendMessage(Message.join(
-                            Message.raw("> Welcome to ").color(Colors.GOLD_LIGHT),
-                            Message.raw("IRORI Server").color(Colors.MUSTARD).bold(true),
-                            Message.raw("!").color(Colors.GOLD_LIGHT)
-                    ));
-                    playerRef.sendMessage(Message.join(
-                            Message.raw("> Please join our ").color(Colors.SKY_LIGHT),
-                            Message.raw("DISCORD").color(Colors.BLUE_LIGHT).bold(true),
-                            Message.raw(": ").color(Colors.GOLD_LIGHT),
-                            Message.raw("discord.gg/" + DISCORD_INVITE).color(Colors.TEAL).link("https://discord.gg/" + DISCORD_INVITE)
-                    ));
+                PlayerSession session = sessions.get(playerRef.getUuid());
+                if (session != null && session.transition(SessionState.CONNECTING, SessionState.READY)) {
+                    session.requestWelcome();
+                    session.transition(SessionState.READY, SessionState.IN_WORLD);
                 }
 
-                if (isShigenWorld(world)) {
-                    ShodoAPI.getInstance().sendMessage(playerRef, "このワールドは定期的にリセットされるので、拠点の製作などは控えてください。", Colors.SCARLET_LIGHT);
-                    ShodoAPI.getInstance().sendMessage(playerRef, "[!] 資源ワールドに入りました [!]", Colors.SCARLET_LIGHT);
+                // Everything below is cosmetic and waits for the world's deferred work budget
+                if (session != null && session.getShigenHud() == null) {
+                    deferredWork.defer(world, ref, () -> buildShigenHud(session, playerRef, store, ref, world));
                 }
-
-                EntityStatMap statMap = store.getComponent(ref, EntityStatMap.getComponentType());
-                if (statMap != null) {
-                    for (int index : statIndexes) {
-                        EntityStatValue value = statMap.get(index);
-                        if (value == null) {
-                            continue;
-                        }
-                        Map<String, Modifier> modifiers = value.getModifiers();
-                        if (modifiers == null) {
-                            continue;
-                        }
-
-                        List<String> toRemove = new ArrayList<>();
-                        for (String key : modifiers.keySet()) {
-                            if (key.startsWith("RPGLeveling")) {
-                                toRemove.add(key);
-                            }
+                boolean shigen = isShigenWorld(world);
+                // The welcome is only claimed when the task runs, a task dropped because the player
+                // changed worlds leaves it pending for the next ready
+                boolean welcome = session != null && session.isWelcomePending();
+                if (welcome || shigen) {
+                    deferredWork.defer(world, ref, () -> {
+                        if (welcome && session.claimWelcome()) {
+                            Messages.CHAT_NOTICE.send(playerRef);
+                            Messages.WELCOME.send(playerRef);
+                            Messages.DISCORD.send(playerRef);
                         }
-
-                        for (String key : toRemove) {
-                            statMap.removeModifier(index, key);
-                            LOGGER.atInfo().log("Removed RPGLeveling modifier '%s' from player %s", key, playerRef.getUsername());
+                        if (shigen) {
+                            Messages.SHIGEN_RESET_WARNING.send(playerRef);
+                            Messages.SHIGEN_ENTERED.send(playerRef);
                         }
-                    }
+                    });
                 }
+                deferredWork.defer(world, ref, () -> {
+                    EntityStatMap statMap = store.getComponent(ref, EntityStatMap.getComponentType());
+                    if (statMap != null) {
+                        modifierPurge.purge(playerRef.getUuid(), playerRef.getUsername(), statMap);
+                    }
+                });
+                commit(jfrEvent, "PlayerReadyEvent", playerRef.getUsername(), world.getName());
             });
         });
 
@@ -214,40 +319,89 @@ public class CorePlugin extends JavaPlugin {
         getCommandRegistry().registerCommand(new MigrateLevelCommand());
         getCommandRegistry().registerCommand(new CoreDebugCommand());
         getCommandRegistry().registerCommand(new CleanupTeleporterCommand());
+        getCommandRegistry().registerCommand(new PlayerLevelsCommand());
+        getCommandRegistry().registerCommand(new JobsCommand());
     }
 
     @Override
     protected void shutdown() {
         LOGGER.atInfo().log("Irori-Manager shutting down. Goodbye!");
-        emptyRestartExecutor.shutdown();
-        scheduledRestartExecutor.shutdown();
+        LOGGER.atInfo().log("Shigen HUD updates: %d sent, %d cleared, %d skipped",
+                ShigenHud.getSentCount(), ShigenHud.getClearedCount(), ShigenHud.getSkippedCount());
+        if (metricsExporter != null) {
+            metricsExporter.shutdown();
+        }
+        Metrics.REGISTRY.unregisterGauges();
+        // Jobs first, a cancelled cleanup may still be waiting on the teleporter pruner
+        jobs.shutdown();
+        if (flightRecording != null) {
+            flightRecording.shutdown();
+        }
+        idleManager.shutdown();
+        shigenWarmup.shutdown();
+        shigenRetirement.shutdown();
+        spawnCache.shutdown();
+        teleportDispatcher.shutdown();
+        deferredWork.shutdown();
+        // After deferred work, which runs the purge
+        if (modifierPurge != null) {
+            LOGGER.atInfo().log("RPGLeveling purge: %d players checked, %d skipped, %d modifiers removed, %d players recorded as clean",
+                    Metrics.PURGE_CHECKED.get(), Metrics.PURGE_SKIPPED.get(), Metrics.MODIFIERS_REMOVED.get(), modifierPurge.getPurgedCount());
+            modifierPurge.shutdown();
+        }
+        playerIndexRefresher.shutdown();
+        teleporterPruner.shutdown();
+        healthMonitor.shutdown();
+        worldWatchdog.shutdown();
+        restartScheduler.shutdown();
+        joinAnnouncer.shutdown();
+        worldRegistry.clear();
+        sessions.clear();
+        ShigenHudContent.clear();
     }
 
-    private void scheduleNextRestart() {
-        LocalDateTime nextRestart = getNextRestart();
-        long delayMillis = Duration.between(LocalDateTime.now(TZ), nextRestart).toMillis();
+    private void registerGauges() {
+        Metrics.REGISTRY.gauge("irori_online_players", "Players currently online", sessions::size);
+        Metrics.REGISTRY.gauge("irori_joining_players", "Players that connected but are not ready yet", () -> sessions.count(SessionState.CONNECTING) + sessions.count(SessionState.READY));
+        Metrics.REGISTRY.gauge("irori_idle", "1 while the server is in low-power mode", () -> idleManager.isIdle() ? 1 : 0);
+        Metrics.REGISTRY.gauge("irori_deferred_backlog", "Cosmetic join tasks waiting for a world's deferred work budget", deferredWork::getBacklog);
+        Metrics.REGISTRY.gauge("irori_teleport_queue_depth", "Command teleports waiting for admission", teleportDispatcher::getQueueDepth);
+        Metrics.REGISTRY.gauge("irori_shigen_hud_contents", "Cached shigen HUD contents", ShigenHudContent::size);
+        Metrics.REGISTRY.gauge("irori_next_restart_seconds", "Seconds until the next scheduled restart, -1 if none", () -> {
+            Instant restartAt = restartScheduler.getRestartAt();
+            return restartAt != null ? (restartAt.toEpochMilli() - System.currentTimeMillis()) / 1000.0D : -1;
+        });
+    }
 
-        for (int secondsBefore : ANNOUNCE_SECONDS) {
-            long announceDelay = delayMillis - secondsBefore * 1000L;
-            if (announceDelay > 0) {
-                scheduledRestartExecutor.schedule(() -> {
-                    for (PlayerRef player : Universe.get().getPlayers()) {
-                        announceRestart(player, secondsBefore);
-                    }
-                }, announceDelay, TimeUnit.MILLISECONDS);
-            }
+    /**
+     * Builds the HUD of a player that joined, which is deferred until their first world is ready.
+     */
+    private void buildShigenHud(PlayerSession session, PlayerRef playerRef, Store<EntityStore> store, Ref<EntityStore> ref, World world) {
+        if (session.getShigenHud() != null) {
+            return;
         }
-
-        scheduledRestartExecutor.schedule(() ->
-                        HytaleServer.get().shutdownServer(ShutdownReason.SHUTDOWN.withMessage("Automatic restart")),
-                delayMillis, TimeUnit.MILLISECONDS);
+        Player player = store.getComponent(ref, Player.getComponentType());
+        if (player == null) {
+            return;
+        }
+        ShigenHud shigenHud = new ShigenHud(player, playerRef);
+        WorldRegistry.WorldInfo info = worldRegistry.info(world);
+        shigenHud.setShigenId(info.shigenId());
+        shigenHud.setVisible(info.isShigen());
+        shigenHud.update(world.getName());
+        session.setShigenHud(shigenHud);
     }
 
-    private static void broadcastMessage(String message) {
-        Universe.get().sendMessage(Message.raw(message).color(Colors.YELLOW));
+    private static void commit(PlayerHandlerEvent jfrEvent, String handler, String player, @Nullable String world) {
+        jfrEvent.end();
+        if (jfrEvent.shouldCommit()) {
+            jfrEvent.handler = handler;
+            jfrEvent.player = player;
+            jfrEvent.world = world;
+            jfrEvent.commit();
+        }
     }
 
-
     private static LocalDateTime getNextRestart() {
         LocalDateTime now = LocalDateTime.now(TZ);
         LocalDate today = now.toLocalDate();
@@ -263,35 +417,56 @@ public class CorePlugin extends JavaPlugin {
         return today.plusDays(1).atTime(sortedHours.getFirst(), 0, 0);
     }
 
-    private static void announceRestart(PlayerRef player, int secondsLeft) {
-        player.sendMessage(Message.join(
-                Message.raw("(!)").color(Colors.ORANGE).bold(true),
-                SPACE,
-                Message.raw("Server RE-START in "),
-                Message.raw(getTimeString(secondsLeft)).color(Colors.YELLOW)
-        ));
+    public SessionRegistry getSessions() {
+        return sessions;
+    }
 
-        ShodoAPI.getInstance().sendMessage(player, getTimeStringJapanese(secondsLeft) + "後 にサーバーを自動再起動します", Colors.ORANGE);
+    public RestartScheduler getRestartScheduler() {
+        return restartScheduler;
     }
 
-    private static String getTimeString(int totalSeconds) {
-        if (totalSeconds >= 60) {
-            int minutes = totalSeconds / 60;
-            return minutes + " minute" + (minutes > 1 ? "s" : "");
-        }
-        return totalSeconds + " second" + (totalSeconds > 1 ? "s" : "");
+    public SpawnCache getSpawnCache() {
+        return spawnCache;
     }
 
-    private static String getTimeStringJapanese(int totalSeconds) {
-        if (totalSeconds >= 60) {
-            int minutes = totalSeconds / 60;
-            return minutes + "分";
-        }
-        return totalSeconds + "秒";
+    public PlayerIndex getPlayerIndex() {
+        return playerIndexRefresher.getIndex();
+    }
+
+    public FlightRecording getFlightRecording() {
+        return flightRecording;
+    }
+
+    public JobManager getJobs() {
+        return jobs;
+    }
+
+    public TeleporterPruner getTeleporterPruner() {
+        return teleporterPruner;
+    }
+
+    public TeleportDispatcher getTeleportDispatcher() {
+        return teleportDispatcher;
+    }
+
+    public ShigenWarmup getShigenWarmup() {
+        return shigenWarmup;
+    }
+
+    public WorldWatchdog getWorldWatchdog() {
+        return worldWatchdog;
     }
 
+    public WorldRegistry getWorldRegistry() {
+        return worldRegistry;
+    }
+
+    /**
+     * Matches any world named like a shigen world, including ones without a numeric id such as
+     * {@code shigen_old}. The HUD and the registry only count worlds with an id, see {@link WorldRegistry}.
+     */
     public static boolean isShigenWorld(String worldName) {
-        return worldName.startsWith("shigen");
+        return WorldRegistry.hasShigenPrefix(worldName);
     }
 
     public static boolean isShigenWorld(World world) {
@@ -299,25 +474,10 @@ public class CorePlugin extends JavaPlugin {
     }
 
     public static @Nullable World getNewestShigenWorld() {
-        World shigen = null;
-        int newestId = -1;
-
-        for (World world : Universe.get().getWorlds().values()) {
-            if (isShigenWorld(world)) {
-                int id = Integer.parseInt(world.getName().substring(6));
-                if (id > newestId) {
-                    newestId = id;
-                    shigen = world;
-                }
-            }
-        }
-        return shigen;
+        return instance.worldRegistry.getNewestShigenWorld();
     }
 
     public static int getShigenId(World world) {
-        if (isShigenWorld(world)) {
-            return Integer.parseInt(world.getName().substring(6));
-        }
-        return 0;
+        return instance.worldRegistry.info(world).shigenId();
     }
 }
@@ -0,0 +1,165 @@
+package cc.irori.core;
+
+import cc.irori.core.metrics.Metrics;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs cosmetic per-player work on the player's world thread, spread over ticks so that a join wave
+ * after a restart does not stall the world. Each tick, a world runs deferred tasks until its time budget
+ * is used up, and at least one.
+ * <p>
+ * A task is dropped if its player left or moved to another world before it ran.
+ */
+public class DeferredWork {
+
+    private static final HytaleLogger LOGGER = Logs.logger();
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "Irori-DeferredWork"));
+    private final Map<World, Backlog> backlogs = new ConcurrentHashMap<>();
+
+    private final long tickMillis;
+    private final long budgetNanos;
+
+    public DeferredWork(long tickMillis, long budgetMicros) {
+        this.tickMillis = tickMillis;
+        this.budgetNanos = TimeUnit.MICROSECONDS.toNanos(budgetMicros);
+    }
+
+    public void start() {
+        executor.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+        backlogs.clear();
+    }
+
+    /**
+     * Queues a task to run later on the world's thread, while the player is still in that world.
+     */
+    public void defer(World world, Ref<EntityStore> ref, Runnable task) {
+        Backlog backlog = backlogs.computeIfAbsent(world, w -> new Backlog());
+        synchronized (backlog) {
+            if (backlog.tasks.isEmpty() && !backlog.draining) {
+                backlog.waveStart = System.nanoTime();
+                backlog.waveTasks = 0;
+                backlog.waveTicks = 0;
+                backlog.peak = 0;
+            }
+            backlog.tasks.addLast(new Task(ref, task, System.nanoTime()));
+            backlog.waveTasks++;
+            backlog.peak = Math.max(backlog.peak, backlog.tasks.size());
+        }
+    }
+
+    /**
+     * Drops the tasks of a world that is being removed.
+     */
+    public void forget(World world) {
+        Backlog backlog = backlogs.remove(world);
+        if (backlog != null) {
+            synchronized (backlog) {
+                backlog.tasks.clear();
+            }
+        }
+    }
+
+    public int getBacklog() {
+        int size = 0;
+        for (Backlog backlog : backlogs.values()) {
+            synchronized (backlog) {
+                size += backlog.tasks.size();
+            }
+        }
+        return size;
+    }
+
+    private void tick() {
+        try {
+            for (Map.Entry<World, Backlog> entry : backlogs.entrySet()) {
+                Backlog backlog = entry.getValue();
+                synchronized (backlog) {
+                    // A world that has not finished the previous drain is lagging, don't pile on
+                    if (backlog.tasks.isEmpty() || backlog.draining) {
+                        continue;
+                    }
+                    backlog.draining = true;
+                }
+                World world = entry.getKey();
+                world.execute(() -> drain(world, backlog));
+            }
+        } catch (Exception e) {
+            LOGGER.atSevere().withCause(e).log("Deferred work tick failed");
+        }
+    }
+
+    private void drain(World world, Backlog backlog) {
+        long start = System.nanoTime();
+        long deadline = start + budgetNanos;
+        int ran = 0;
+        do {
+            Task task;
+            synchronized (backlog) {
+                task = backlog.tasks.pollFirst();
+            }
+            if (task == null) {
+                break;
+            }
+            run(world, task);
+            ran++;
+        } while (System.nanoTime() < deadline);
+        Metrics.DEFERRED_DRAIN.recordNanos(System.nanoTime() - start);
+
+        synchronized (backlog) {
+            backlog.draining = false;
+            backlog.waveTicks++;
+            if (!backlog.tasks.isEmpty() || ran == 0) {
+                return;
+            }
+            // Only waves that needed more than one tick are worth a line in the log
+            if (backlog.waveTicks > 1) {
+                LOGGER.atInfo().log("Drained %d deferred join tasks in '%s' over %d ticks in %.2fs (peak backlog %d)",
+                        backlog.waveTasks, world.getName(), backlog.waveTicks,
+                        (System.nanoTime() - backlog.waveStart) / 1_000_000_000.0D, backlog.peak);
+            }
+        }
+    }
+
+    private static void run(World world, Task task) {
+        Metrics.DEFERRED_WAIT.recordNanos(System.nanoTime() - task.deferredAt);
+        if (!task.ref.isValid() || task.ref.getStore().getExternalData().getWorld() != world) {
+            Metrics.DEFERRED_DROPPED.increment();
+            return;
+        }
+        try {
+            task.task.run();
+        } catch (Exception e) {
+            LOGGER.atSevere().withCause(e).log("Deferred task failed in '%s'", world.getName());
+        }
+    }
+
+    private static final class Backlog {
+
+        private final ArrayDeque<Task> tasks = new ArrayDeque<>();
+        private boolean draining = false;
+
+        // The current wave, from the first task queued into an empty backlog until it is empty again
+        private long waveStart;
+        private int waveTasks;
+        private int waveTicks;
+        private int peak;
+    }
+
+    private record Task(Ref<EntityStore> ref, Runnable task, long deferredAt) {
+    }
+}
@@ -0,0 +1,213 @@
+package cc.irori.core;
+
+import cc.irori.core.metrics.Metrics;
+import cc.irori.core.session.SessionRegistry;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.universe.Universe;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.sun.management.OperatingSystemMXBean;
+
+import javax.annotation.Nullable;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Puts the server into a low-power mode once it has had no sessions for a grace period. It stops
+ * ticking every world except the default one, drops the spawn and HUD caches, and brings a restart
+ * that is due soon forward to now. The first connecting player wakes it up again, from the connect
+ * handler itself so their world is ticking before they reach it.
+ * <p>
+ * CPU time saved is estimated against the process CPU rate during the grace period, when the server
+ * was already empty but still ticking everything. State is shared by the idle thread, the connect
+ * handler and the world threads, and guarded by this instance.
+ * <p>
+ * A world is frozen from its own thread, between ticks. A frozen world no longer drains its task queue,
+ * so it is resumed directly from whichever thread wakes the server.
+ */
+public class IdleManager {
+
+    private static final HytaleLogger LOGGER = Logs.logger();
+
+    private static final long POLL_SECONDS = 10;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "Irori-Idle"));
+    private final OperatingSystemMXBean os = (OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+
+    private final SessionRegistry sessions;
+    private final WorldRegistry worldRegistry;
+    private final RestartScheduler restartScheduler;
+    private final SpawnCache spawnCache;
+    private final Settings settings;
+    private final Instant startedAt = Instant.now();
+
+    private volatile boolean idle = false;
+
+    private long emptySinceNanos = -1;
+    private long cpuAtEmpty;
+    private long idleSinceNanos;
+    private long cpuAtIdle;
+    private double emptyCpuRate;
+    private final List<World> frozen = new ArrayList<>();
+    // The scheduled restart an idle restart replaced, put back if a player arrives first
+    private @Nullable Instant deferredRestart;
+
+    public IdleManager(SessionRegistry sessions, WorldRegistry worldRegistry, RestartScheduler restartScheduler,
+                       SpawnCache spawnCache, Settings settings) {
+        this.sessions = sessions;
+        this.worldRegistry = worldRegistry;
+        this.restartScheduler = restartScheduler;
+        this.spawnCache = spawnCache;
+        this.settings = settings;
+    }
+
+    public void start() {
+        executor.scheduleWithFixedDelay(this::poll, POLL_SECONDS, POLL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Lets frozen worlds tick again, so they are saved and left in a normal state.
+     */
+    public void shutdown() {
+        executor.execute(this::wake);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Called from the connect handler, wakes the server before the player reaches a world.
+     */
+    public void playerConnected() {
+        if (idle) {
+            wake();
+        }
+    }
+
+    public boolean isIdle() {
+        return idle;
+    }
+
+    private synchronized void poll() {
+        try {
+            if (sessions.size() > 0) {
+                // Missed the connect, e.g. a player adopted at startup
+                wake();
+                return;
+            }
+            if (idle) {
+                return;
+            }
+            long now = System.nanoTime();
+            if (emptySinceNanos < 0) {
+                emptySinceNanos = now;
+                cpuAtEmpty = os.getProcessCpuTime();
+                return;
+            }
+            if (now - emptySinceNanos >= settings.grace().toNanos()) {
+                enterIdle(now);
+            }
+        } catch (Exception e) {
+            LOGGER.atSevere().withCause(e).log("Idle check failed");
+        }
+    }
+
+    private void enterIdle(long now) {
+        long cpu = os.getProcessCpuTime();
+        emptyCpuRate = (cpu - cpuAtEmpty) / (double) (now - emptySinceNanos);
+        idleSinceNanos = now;
+        cpuAtIdle = cpu;
+        idle = true;
+
+        World defaultWorld = Universe.get().getDefaultWorld();
+        for (World world : Universe.get().getWorlds().values()) {
+            // A warming shigen world has to keep loading its spawn area
+            if (world == defaultWorld || worldRegistry.isWarming(world.getName()) || !world.isTicking()) {
+                continue;
+            }
+            frozen.add(world);
+            world.execute(() -> freeze(world));
+        }
+
+        int spawns = spawnCache.size();
+        int huds = ShigenHudContent.size();
+        spawnCache.clear();
+        ShigenHudContent.clear();
+
+        LOGGER.atInfo().log("No players for %d minutes, entering low-power mode: stopped ticking %d worlds, dropped %d cached spawns and %d HUD contents",
+                settings.grace().toMinutes(), frozen.size(), spawns, huds);
+        restartIfDue();
+    }
+
+    /**
+     * Runs on the world's thread. A wake that came first has already dropped the world from
+     * {@link #frozen}, and the world keeps ticking.
+     */
+    private synchronized void freeze(World world) {
+        if (idle && frozen.contains(world)) {
+            world.setTicking(false);
+        }
+    }
+
+    private void restartIfDue() {
+        Instant restartAt = restartScheduler.getRestartAt();
+        if (restartAt == null) {
+            return;
+        }
+        Instant now = Instant.now();
+        if (Duration.between(now, restartAt).compareTo(settings.restartAhead()) > 0
+                || Duration.between(startedAt, now).compareTo(settings.minUptime()) < 0) {
+            return;
+        }
+        deferredRestart = restartAt;
+        LOGGER.atInfo().log("Server is empty, bringing the restart due at %s forward", restartAt);
+        restartScheduler.schedule(now.plusSeconds(settings.restartDelaySeconds()));
+    }
+
+    private synchronized void wake() {
+        emptySinceNanos = -1;
+        if (!idle) {
+            return;
+        }
+        idle = false;
+
+        for (World world : frozen) {
+            // Worlds removed while frozen are gone for good
+            if (Universe.get().getWorld(world.getName()) == world) {
+                world.setTicking(true);
+            }
+        }
+        int resumed = frozen.size();
+        frozen.clear();
+
+        if (deferredRestart != null) {
+            LOGGER.atInfo().log("A player arrived before the idle restart, moving it back to %s", deferredRestart);
+            restartScheduler.schedule(deferredRestart);
+            deferredRestart = null;
+        }
+
+        long idleNanos = System.nanoTime() - idleSinceNanos;
+        long usedNanos = os.getProcessCpuTime() - cpuAtIdle;
+        long savedNanos = Math.max(0, (long) (emptyCpuRate * idleNanos) - usedNanos);
+        Metrics.IDLE_CPU_SAVED_MILLIS.add(TimeUnit.NANOSECONDS.toMillis(savedNanos));
+        LOGGER.atInfo().log("Leaving low-power mode after %.1f minutes, resumed %d worlds: used %.1fs of CPU, saved about %.1fs",
+                idleNanos / 60_000_000_000.0D, resumed, usedNanos / 1_000_000_000.0D, savedNanos / 1_000_000_000.0D);
+    }
+
+    /**
+     * @param grace               how long the server has to be empty before going idle
+     * @param restartAhead        how far ahead a scheduled restart may be brought forward
+     * @param minUptime           uptime below which no restart is brought forward
+     * @param restartDelaySeconds delay of a restart brought forward
+     */
+    public record Settings(Duration grace, Duration restartAhead, Duration minUptime, long restartDelaySeconds) {
+    }
+}
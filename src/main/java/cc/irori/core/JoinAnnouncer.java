@@ -0,0 +1,179 @@
+package cc.irori.core;
+
+import cc.irori.core.message.MessageTemplate;
+import cc.irori.core.message.Messages;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.Universe;
+import com.hypixel.hytale.server.core.universe.world.World;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects join and leave events over a short window and announces them as one digest per window,
+ * e.g. "A, B, C and 37 others joined the game". Delivery happens on each world's own thread and is
+ * limited to a maximum number of message sends per second. Players are not told about their own join.
+ */
+public class JoinAnnouncer {
+
+    private static final HytaleLogger LOGGER = Logs.logger();
+
+    private static final int MAX_LISTED_NAMES = 3;
+
+    private final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> new Thread(r, "Irori-JoinAnnouncer"));
+
+    private final long windowMillis;
+    private final int maxSendsPerSecond;
+
+    private final Map<UUID, String> joined = new LinkedHashMap<>();
+    private final Map<UUID, String> left = new LinkedHashMap<>();
+    private boolean flushScheduled = false;
+
+    // Token bucket for message sends, only touched from the executor thread
+    private double sendTokens;
+    private long lastRefillNanos = System.nanoTime();
+
+    public JoinAnnouncer(long windowMillis, int maxSendsPerSecond) {
+        this.windowMillis = windowMillis;
+        this.maxSendsPerSecond = maxSendsPerSecond;
+        this.sendTokens = maxSendsPerSecond;
+        // Digests still waiting for their window or send budget are dropped when the server stops
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    public void joined(UUID uuid, String username) {
+        synchronized (this) {
+            left.remove(uuid);
+            joined.put(uuid, username);
+            scheduleFlush();
+        }
+    }
+
+    public void left(UUID uuid, String username) {
+        synchronized (this) {
+            // Joined and left within one window, nobody needs to hear about it
+            if (joined.remove(uuid) == null) {
+                left.put(uuid, username);
+            }
+            scheduleFlush();
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private void scheduleFlush() {
+        if (!flushScheduled) {
+            flushScheduled = true;
+            executor.schedule(this::flush, windowMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void flush() {
+        List<String> joinedNames;
+        List<String> leftNames;
+        Set<UUID> joiners;
+        synchronized (this) {
+            joinedNames = new ArrayList<>(joined.values());
+            leftNames = new ArrayList<>(left.values());
+            joiners = new HashSet<>(joined.keySet());
+            joined.clear();
+            left.clear();
+            flushScheduled = false;
+        }
+
+        if (!joinedNames.isEmpty()) {
+            deliver(Messages.PLAYERS_JOINED, joinedNames, joiners);
+        }
+        if (!leftNames.isEmpty()) {
+            deliver(Messages.PLAYERS_LEFT, leftNames, Set.of());
+        }
+    }
+
+    private void deliver(MessageTemplate template, List<String> names, Set<UUID> excluded) {
+        String english = digest(names);
+        MessageTemplate.Filled message = template.fill(english, digestJapanese(names));
+        LOGGER.atInfo().log("%s (%d players)", english, names.size());
+        for (World world : Universe.get().getWorlds().values()) {
+            deliver(world, message, excluded);
+        }
+    }
+
+    private void deliver(World world, MessageTemplate.Filled message, Set<UUID> excluded) {
+        int sends = world.getPlayerRefs().size() * message.sendCount();
+        if (sends == 0) {
+            return;
+        }
+
+        long delayNanos = acquire(sends);
+        Runnable send = () -> world.execute(() -> {
+            for (PlayerRef ref : world.getPlayerRefs()) {
+                if (!excluded.contains(ref.getUuid())) {
+                    message.send(ref);
+                }
+            }
+        });
+        if (delayNanos <= 0) {
+            send.run();
+        } else {
+            executor.schedule(send, delayNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Takes {@code sends} tokens from the bucket, going into debt if needed.
+     *
+     * @return how long to wait before the sends may go out
+     */
+    private long acquire(int sends) {
+        long now = System.nanoTime();
+        sendTokens = Math.min(maxSendsPerSecond, sendTokens + (now - lastRefillNanos) * maxSendsPerSecond / 1_000_000_000.0D);
+        lastRefillNanos = now;
+        sendTokens -= sends;
+        if (sendTokens >= 0) {
+            return 0;
+        }
+        return (long) (-sendTokens / maxSendsPerSecond * 1_000_000_000.0D);
+    }
+
+    private static String digest(List<String> names) {
+        StringBuilder builder = new StringBuilder();
+        int listed = names.size() > MAX_LISTED_NAMES + 1 ? MAX_LISTED_NAMES : names.size();
+        for (int i = 0; i < listed; i++) {
+            if (i > 0) {
+                builder.append(i == listed - 1 && listed == names.size() ? " and " : ", ");
+            }
+            builder.append(names.get(i));
+        }
+        int others = names.size() - listed;
+        if (others > 0) {
+            builder.append(" and ").append(others).append(" others");
+        }
+        return builder.toString();
+    }
+
+    private static String digestJapanese(List<String> names) {
+        StringBuilder builder = new StringBuilder();
+        int listed = names.size() > MAX_LISTED_NAMES + 1 ? MAX_LISTED_NAMES : names.size();
+        for (int i = 0; i < listed; i++) {
+            if (i > 0) {
+                builder.append('、');
+            }
+            builder.append(names.get(i));
+        }
+        int others = names.size() - listed;
+        if (others > 0) {
+            builder.append("、他").append(others).append("人");
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,177 @@
+package cc.irori.core;
+
+import cc.irori.core.metrics.Metrics;
+import cc.irori.core.util.UuidSet;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.modules.entitystats.EntityStatMap;
+import com.hypixel.hytale.server.core.modules.entitystats.EntityStatValue;
+import com.hypixel.hytale.server.core.modules.entitystats.modifier.Modifier;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One-time removal of legacy RPGLeveling stat modifiers. Players that have been cleaned are
+ * remembered in an append-only file of raw UUIDs, so the ready path can skip them with a single lookup.
+ * <p>
+ * A player is only recorded once a check finds nothing to remove. Removed modifiers are saved with the
+ * player's data later, and a crash before that must not leave the player skipped with their modifiers back.
+ */
+public class ModifierPurge {
+
+    private static final HytaleLogger LOGGER = Logs.logger();
+
+    private static final String MODIFIER_PREFIX = "RPGLeveling";
+    private static final int UUID_BYTES = 16;
+
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> new Thread(r, "Irori-ModifierPurge"));
+
+    private final Path file;
+    private final int[] statIndexes;
+    private volatile UuidSet purged = new UuidSet(0);
+
+    // Only touched from the writer thread
+    private FileChannel channel;
+
+    public ModifierPurge(Path file, int... statIndexes) {
+        this.file = file;
+        this.statIndexes = statIndexes;
+    }
+
+    public void load() {
+        if (!Files.isRegularFile(file)) {
+            return;
+        }
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            int entries = (int) (in.size() / UUID_BYTES);
+            ByteBuffer buffer = in.map(FileChannel.MapMode.READ_ONLY, 0, (long) entries * UUID_BYTES);
+            UuidSet loaded = new UuidSet(entries);
+            for (int i = 0; i < entries; i++) {
+                long msb = buffer.getLong();
+                long lsb = buffer.getLong();
+                // Cannot be stored, such a player is simply checked on every join
+                if (msb != 0) {
+                    loaded.add(msb, lsb);
+                }
+            }
+            purged = loaded;
+            LOGGER.atInfo().log("Loaded %d players already purged of RPGLeveling modifiers", loaded.size());
+        } catch (IOException e) {
+            LOGGER.atSevere().withCause(e).log("Failed to load purged players from %s, every player will be checked again", file);
+        }
+    }
+
+    public void shutdown() {
+        writer.execute(this::closeChannel);
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int getPurgedCount() {
+        return purged.size();
+    }
+
+    /**
+     * Removes RPGLeveling modifiers from the player's stats unless they were cleaned before. A player
+     * that had modifiers removed is checked again on their next join, and recorded then.
+     * Must be called on the player's world thread.
+     */
+    public void purge(UUID uuid, String username, EntityStatMap statMap) {
+        if (purged.contains(uuid)) {
+            Metrics.PURGE_SKIPPED.increment();
+            return;
+        }
+
+        long start = System.nanoTime();
+        int removed = 0;
+        for (int index : statIndexes) {
+            EntityStatValue value = statMap.get(index);
+            if (value == null) {
+                continue;
+            }
+            Map<String, Modifier> modifiers = value.getModifiers();
+            if (modifiers == null) {
+                continue;
+            }
+
+            List<String> toRemove = null;
+            for (String key : modifiers.keySet()) {
+                if (key.startsWith(MODIFIER_PREFIX)) {
+                    if (toRemove == null) {
+                        toRemove = new ArrayList<>();
+                    }
+                    toRemove.add(key);
+                }
+            }
+            if (toRemove == null) {
+                continue;
+            }
+
+            for (String key : toRemove) {
+                statMap.removeModifier(index, key);
+                LOGGER.atInfo().log("Removed RPGLeveling modifier '%s' from player %s", key, username);
+            }
+            removed += toRemove.size();
+        }
+
+        Metrics.MODIFIERS_REMOVED.add(removed);
+        Metrics.PURGE_CHECKED.increment();
+        Metrics.MODIFIER_PURGE.recordNanos(System.nanoTime() - start);
+        if (removed == 0) {
+            markPurged(uuid);
+        }
+    }
+
+    private void markPurged(UUID uuid) {
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+        // A purge task still draining on a world thread after shutdown is checked again on the next join
+        if (msb == 0 || writer.isShutdown() || !purged.add(msb, lsb)) {
+            return;
+        }
+        try {
+            writer.execute(() -> {
+                try {
+                    if (channel == null) {
+                        Files.createDirectories(file.toAbsolutePath().getParent());
+                        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                    }
+                    ByteBuffer buffer = ByteBuffer.allocate(UUID_BYTES).putLong(msb).putLong(lsb).flip();
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                } catch (IOException e) {
+                    LOGGER.atWarning().withCause(e).log("Failed to record purged player %s", uuid);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Shut down after the check above
+        }
+    }
+
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+            channel = null;
+        }
+    }
+}
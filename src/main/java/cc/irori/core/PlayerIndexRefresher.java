@@ -0,0 +1,77 @@
+package cc.irori.core;
+
+import cc.irori.core.diagnostics.event.FilePassEvent;
+import cc.irori.core.maintenance.PlayerIndex;
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the {@link PlayerIndex} of {@code universe/players} current by refreshing it periodically.
+ */
+public class PlayerIndexRefresher {
+
+    private static final HytaleLogger LOGGER = Logs.logger();
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "Irori-PlayerIndex"));
+    private final PlayerIndex index;
+    private final Path playersDir;
+    private final long intervalMinutes;
+
+    public PlayerIndexRefresher(Path playersDir, Path indexFile, long intervalMinutes) {
+        this.index = new PlayerIndex(playersDir, indexFile);
+        this.playersDir = playersDir;
+        this.intervalMinutes = intervalMinutes;
+    }
+
+    public void start() {
+        executor.execute(() -> {
+            try {
+                index.load();
+                LOGGER.atInfo().log("Loaded player index with %d players", index.size());
+            } catch (Exception e) {
+                LOGGER.atWarning().withCause(e).log("Failed to load the player index, it will be rebuilt");
+            }
+        });
+        executor.scheduleWithFixedDelay(this::refresh, 0, intervalMinutes, TimeUnit.MINUTES);
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public PlayerIndex getIndex() {
+        return index;
+    }
+
+    private void refresh() {
+        if (!Files.isDirectory(playersDir)) {
+            return;
+        }
+        try {
+            FilePassEvent event = new FilePassEvent();
+            event.begin();
+            PlayerIndex.RefreshResult result = index.refresh();
+            event.end();
+            if (event.shouldCommit()) {
+                event.pass = "refresh player index";
+                event.entries = result.indexed();
+                event.changed = result.parsed();
+                event.commit();
+            }
+            LOGGER.atInfo().log("Refreshed player index in %.2fs: %d players, %d files re-read, %d failed, %d removed",
+                    result.seconds(), result.indexed(), result.parsed(), result.failed(), result.removed());
+            for (String failure : result.failures()) {
+                LOGGER.atWarning().log("Failed to index %s", failure);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            LOGGER.atWarning().withCause(e).log("Failed to refresh the player index");
+        }
+    }
+}
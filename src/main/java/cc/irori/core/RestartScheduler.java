@@ -0,0 +1,164 @@
+package cc.irori.core;
+
+import cc.irori.core.diagnostics.event.RestartAnnounceEvent;
+import cc.irori.core.message.MessageTemplate;
+import cc.irori.core.message.Messages;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.HytaleServer;
+import com.hypixel.hytale.server.core.ShutdownReason;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.Universe;
+import com.hypixel.hytale.server.core.universe.world.World;
+
+import javax.annotation.Nullable;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts down to an automatic restart with a single pending timer task. Each countdown message is
+ * built once per announcement and delivered to players on their world's own thread.
+ */
+public class RestartScheduler {
+
+    private static final HytaleLogger LOGGER = Logs.logger();
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "Irori-Restart"));
+
+    // Seconds before the restart at which to announce, largest first
+    private final int[] announceSeconds;
+
+    private @Nullable Instant restartAt;
+    private @Nullable ScheduledFuture<?> pending;
+    private int nextAnnounce;
+    private long generation;
+
+    public RestartScheduler(List<Integer> announceSeconds) {
+        this.announceSeconds = announceSeconds.stream()
+                .sorted(Comparator.reverseOrder())
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    /**
+     * Schedules the restart at the given time, replacing any restart that is already scheduled.
+     * Announcements whose time has already passed are skipped.
+     */
+    public synchronized void schedule(Instant restartAt) {
+        cancelPending();
+        this.restartAt = restartAt;
+
+        long millisLeft = restartAt.toEpochMilli() - System.currentTimeMillis();
+        nextAnnounce = 0;
+        while (nextAnnounce < announceSeconds.length && announceSeconds[nextAnnounce] * 1000L >= millisLeft) {
+            nextAnnounce++;
+        }
+
+        LOGGER.atInfo().log("Next automatic restart at %s", restartAt);
+        scheduleNextTick();
+    }
+
+    public synchronized void cancel() {
+        cancelPending();
+        restartAt = null;
+    }
+
+    public synchronized @Nullable Instant getRestartAt() {
+        return restartAt;
+    }
+
+    public void shutdown() {
+        cancel();
+        executor.shutdown();
+    }
+
+    private void cancelPending() {
+        generation++;
+        if (pending != null) {
+            pending.cancel(false);
+            pending = null;
+        }
+    }
+
+    private void scheduleNextTick() {
+        if (restartAt == null) {
+            return;
+        }
+        long wakeAt = restartAt.toEpochMilli();
+        if (nextAnnounce < announceSeconds.length) {
+            wakeAt -= announceSeconds[nextAnnounce] * 1000L;
+        }
+        long tickGeneration = generation;
+        pending = executor.schedule(() -> tick(tickGeneration), Math.max(0, wakeAt - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void tick(long tickGeneration) {
+        // Rescheduled or cancelled while this tick was waiting for the lock
+        if (tickGeneration != generation || restartAt == null) {
+            return;
+        }
+
+        long millisLeft = restartAt.toEpochMilli() - System.currentTimeMillis();
+        if (millisLeft <= 0) {
+            restartAt = null;
+            pending = null;
+            HytaleServer.get().shutdownServer(ShutdownReason.SHUTDOWN.withMessage("Automatic restart"));
+            return;
+        }
+
+        // If the timer fired late, only announce the most recent point that is due
+        int due = -1;
+        while (nextAnnounce < announceSeconds.length && announceSeconds[nextAnnounce] * 1000L >= millisLeft) {
+            due = announceSeconds[nextAnnounce];
+            nextAnnounce++;
+        }
+        if (due > 0) {
+            announce(due);
+        }
+
+        scheduleNextTick();
+    }
+
+    private static void announce(int secondsLeft) {
+        MessageTemplate.Filled message = Messages.RESTART_COUNTDOWN.fill(getTimeString(secondsLeft), getTimeStringJapanese(secondsLeft));
+
+        for (World world : Universe.get().getWorlds().values()) {
+            world.execute(() -> {
+                RestartAnnounceEvent event = new RestartAnnounceEvent();
+                event.begin();
+                int recipients = 0;
+                for (PlayerRef player : world.getPlayerRefs()) {
+                    message.send(player);
+                    recipients++;
+                }
+                event.end();
+                if (event.shouldCommit()) {
+                    event.world = world.getName();
+                    event.secondsLeft = secondsLeft;
+                    event.recipients = recipients;
+                    event.commit();
+                }
+            });
+        }
+    }
+
+    private static String getTimeString(int totalSeconds) {
+        if (totalSeconds >= 60) {
+            int minutes = totalSeconds / 60;
+            return minutes + " minute" + (minutes > 1 ? "s" : "");
+        }
+        return totalSeconds + " second" + (totalSeconds > 1 ? "s" : "");
+    }
+
+    private static String getTimeStringJapanese(int totalSeconds) {
+        if (totalSeconds >= 60) {
+            int minutes = totalSeconds / 60;
+            return minutes + "分";
+        }
+        return totalSeconds + "秒";
+    }
+}
@@ -0,0 +1,210 @@
+package cc.irori.core;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.universe.Universe;
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.GcInfo;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches GC notifications for old-gen occupancy after collection and long pauses, and moves the
+ * scheduled restart accordingly: forward when the heap is under pressure, back when the server is
+ * healthy and busy.
+ */
+public class ServerHealthMonitor implements NotificationListener {
+
+    private static final HytaleLogger LOGGER = Logs.logger();
+
+    private static final long EVALUATE_INTERVAL_SECONDS = 30;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "Irori-HealthMonitor"));
+    private final List<NotificationEmitter> emitters = new ArrayList<>();
+
+    private final RestartScheduler restartScheduler;
+    private final Thresholds thresholds;
+
+    private volatile double oldGenRatio = 0.0D;
+    private int highOldGenStreak = 0;
+    private final ArrayDeque<Long> longPauses = new ArrayDeque<>();
+
+    // Only touched from the executor thread
+    private Instant decidedRestart;
+    private int postpones = 0;
+
+    public ServerHealthMonitor(RestartScheduler restartScheduler, Thresholds thresholds) {
+        this.restartScheduler = restartScheduler;
+        this.thresholds = thresholds;
+    }
+
+    public void start() {
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (gc instanceof NotificationEmitter emitter) {
+                emitter.addNotificationListener(this, null, null);
+                emitters.add(emitter);
+            }
+        }
+        executor.scheduleWithFixedDelay(this::evaluate, EVALUATE_INTERVAL_SECONDS, EVALUATE_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    public void shutdown() {
+        for (NotificationEmitter emitter : emitters) {
+            try {
+                emitter.removeNotificationListener(this);
+            } catch (ListenerNotFoundException ignored) {
+            }
+        }
+        emitters.clear();
+        executor.shutdown();
+    }
+
+    public double getOldGenRatio() {
+        return oldGenRatio;
+    }
+
+    public synchronized int getRecentLongPauses() {
+        prunePauses(System.currentTimeMillis());
+        return longPauses.size();
+    }
+
+    @Override
+    public void handleNotification(Notification notification, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            return;
+        }
+        GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        GcInfo gcInfo = info.getGcInfo();
+
+        synchronized (this) {
+            // Concurrent cycles report their whole duration, which is not time the server was paused
+            if (isPause(info.getGcName()) && gcInfo.getDuration() >= thresholds.pauseMillis()) {
+                longPauses.addLast(System.currentTimeMillis());
+                LOGGER.atWarning().log("GC pause of %dms (%s, %s)", gcInfo.getDuration(), info.getGcName(), info.getGcCause());
+            }
+
+            for (Map.Entry<String, MemoryUsage> entry : gcInfo.getMemoryUsageAfterGc().entrySet()) {
+                if (!isOldGen(entry.getKey())) {
+                    continue;
+                }
+                MemoryUsage usage = entry.getValue();
+                long max = usage.getMax() > 0 ? usage.getMax() : usage.getCommitted();
+                if (max <= 0) {
+                    continue;
+                }
+                double ratio = (double) usage.getUsed() / max;
+                oldGenRatio = ratio;
+                highOldGenStreak = ratio >= thresholds.oldGenRatio() ? highOldGenStreak + 1 : 0;
+            }
+        }
+    }
+
+    private void evaluate() {
+        try {
+            Instant restartAt = restartScheduler.getRestartAt();
+            if (restartAt == null) {
+                return;
+            }
+            Instant now = Instant.now();
+
+            int streak;
+            int pauses;
+            synchronized (this) {
+                streak = highOldGenStreak;
+                prunePauses(now.toEpochMilli());
+                pauses = longPauses.size();
+            }
+
+            if (streak >= thresholds.oldGenStreak() || pauses >= thresholds.pauseCount()) {
+                Instant early = now.plus(thresholds.earlyRestartLead());
+                if (early.isBefore(restartAt)) {
+                    LOGGER.atWarning().log("Bringing restart forward from %s to %s: old gen %.0f%% after GC (%d in a row), %d long GC pauses",
+                            restartAt, early, oldGenRatio * 100, streak, pauses);
+                    restartScheduler.schedule(early);
+                    decidedRestart = early;
+                }
+                return;
+            }
+
+            // Decide about postponing once per restart, before the first countdown announcement goes out
+            if (restartAt.equals(decidedRestart) || Duration.between(now, restartAt).compareTo(thresholds.postponeDecisionLead()) > 0) {
+                return;
+            }
+            decidedRestart = restartAt;
+
+            int players = Universe.get().getPlayers().size();
+            boolean healthy = oldGenRatio < thresholds.healthyOldGenRatio() && pauses == 0;
+            if (healthy && players >= thresholds.fullPlayers() && postpones < thresholds.maxPostpones()) {
+                Instant later = restartAt.plus(thresholds.postpone());
+                postpones++;
+                LOGGER.atInfo().log("Postponing restart from %s to %s (%d/%d): %d players online, old gen %.0f%% after GC",
+                        restartAt, later, postpones, thresholds.maxPostpones(), players, oldGenRatio * 100);
+                restartScheduler.schedule(later);
+            } else {
+                LOGGER.atInfo().log("Keeping restart at %s: %d players online, old gen %.0f%% after GC, %d long GC pauses, %d postpones used",
+                        restartAt, players, oldGenRatio * 100, pauses, postpones);
+            }
+        } catch (Exception e) {
+            LOGGER.atSevere().withCause(e).log("Failed to evaluate server health");
+        }
+    }
+
+    private void prunePauses(long nowMillis) {
+        long cutoff = nowMillis - thresholds.pauseWindow().toMillis();
+        while (!longPauses.isEmpty() && longPauses.peekFirst() < cutoff) {
+            longPauses.pollFirst();
+        }
+    }
+
+    private static boolean isOldGen(String poolName) {
+        return poolName.contains("Old") || poolName.contains("Tenured");
+    }
+
+    private static boolean isPause(String gcName) {
+        return !gcName.contains("Concurrent") && !gcName.contains("Cycles");
+    }
+
+    /**
+     * @param oldGenRatio          old-gen occupancy after GC that counts as memory pressure
+     * @param oldGenStreak         how many collections in a row must end above {@code oldGenRatio}
+     * @param pauseMillis          GC pause length that counts as a long pause
+     * @param pauseCount           how many long pauses within {@code pauseWindow} count as pressure
+     * @param pauseWindow          how far back long pauses are counted
+     * @param earlyRestartLead     how far ahead an early restart is scheduled, leaving room for the countdown. Keep it
+     *                             a little above an announcement point, the scheduler skips points already reached
+     * @param healthyOldGenRatio   old-gen occupancy below which a postpone is allowed
+     * @param fullPlayers          player count at which the server counts as full
+     * @param postpone             how long each postpone delays the restart
+     * @param maxPostpones         how many times a restart may be postponed
+     * @param postponeDecisionLead how long before the restart the postpone decision is made
+     */
+    public record Thresholds(
+            double oldGenRatio,
+            int oldGenStreak,
+            long pauseMillis,
+            int pauseCount,
+            Duration pauseWindow,
+            Duration earlyRestartLead,
+            double healthyOldGenRatio,
+            int fullPlayers,
+            Duration postpone,
+            int maxPostpones,
+            Duration postponeDecisionLead
+    ) {
+    }
+}
@@ -1,6 +1,7 @@
 package cc.irori.core;
 
-import cc.irori.shodo.TextBox;
+import cc.irori.core.diagnostics.event.HudUpdateEvent;
+import cc.irori.core.metrics.Metrics;
 import com.buuz135.mhud.MultipleHUD;
 import com.hypixel.hytale.server.core.entity.entities.Player;
 import com.hypixel.hytale.server.core.entity.entities.player.hud.CustomUIHud;
@@ -10,29 +11,27 @@ import org.checkerframework.checker.nullness.compatqual.NonNullDecl;
 
 public class ShigenHud extends CustomUIHud {
 
+    private static final String HUD_ID = "IroriCore_ShigenHUD";
+
     private final Player player;
-    private final TextBox textBox = TextBox.builder()
-            .setWidth(400)
-            .setHeight(400)
-            .setCleanupPeriodSeconds(0)
-            .build();
 
     private boolean isVisible = false;
     private int shigenId = 0;
 
+    // What the client currently has, so no-op transitions can be skipped
+    private ShigenHudContent rendered;
+
     public ShigenHud(Player player, PlayerRef playerRef) {
         super(playerRef);
         this.player = player;
-        updateMessage();
     }
 
     @Override
     protected void build(@NonNullDecl UICommandBuilder uiCommandBuilder) {
-        if (!isVisible) {
+        if (!isVisible || rendered == null) {
             return;
         }
-        uiCommandBuilder.append("Irori/Shigen.ui");
-        textBox.render(uiCommandBuilder, "#ShigenContainer");
+        rendered.render(uiCommandBuilder);
     }
 
     public void setVisible(boolean visible) {
@@ -41,16 +40,57 @@ public class ShigenHud extends CustomUIHud {
 
     public void setShigenId(int shigenId) {
         this.shigenId = shigenId;
-        updateMessage();
     }
 
-    public void update() {
-        MultipleHUD.getInstance().setCustomHud(player, getPlayerRef(), "IroriCore_ShigenHUD", this);
+    /**
+     * @param worldName the world the player is entering, only recorded in {@link HudUpdateEvent}
+     */
+    public void update(String worldName) {
+        HudUpdateEvent event = new HudUpdateEvent();
+        event.begin();
+        String outcome = apply();
+        event.end();
+        if (event.shouldCommit()) {
+            event.player = getPlayerRef().getUsername();
+            event.world = worldName;
+            event.shigenId = shigenId;
+            event.outcome = outcome;
+            event.commit();
+        }
+    }
+
+    private String apply() {
+        if (!isVisible) {
+            if (rendered != null) {
+                rendered = null;
+                MultipleHUD.getInstance().hideCustomHud(player, getPlayerRef(), HUD_ID);
+                Metrics.HUD_CLEARED.increment();
+                return "cleared";
+            }
+            Metrics.HUD_SKIPPED.increment();
+            return "skipped";
+        }
+
+        if (rendered != null && rendered.getShigenId() == shigenId) {
+            Metrics.HUD_SKIPPED.increment();
+            return "skipped";
+        }
+
+        rendered = ShigenHudContent.get(shigenId);
+        MultipleHUD.getInstance().setCustomHud(player, getPlayerRef(), HUD_ID, this);
+        Metrics.HUD_SENT.increment();
+        return "sent";
+    }
+
+    public static long getSentCount() {
+        return Metrics.HUD_SENT.get();
+    }
+
+    public static long getClearedCount() {
+        return Metrics.HUD_CLEARED.get();
     }
 
-    private void updateMessage() {
-        textBox.typesetter().clear();
-        textBox.typesetter().addMessage("/spawn → 資源ワールドを出る", Colors.SKY_LIGHT);
-        textBox.typesetter().addMessage("資源ワールド" + shigenId + " (リセットあり)", Colors.SCARLET_LIGHT);
+    public static long getSkippedCount() {
+        return Metrics.HUD_SKIPPED.get();
     }
 }
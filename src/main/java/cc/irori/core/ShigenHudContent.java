@@ -0,0 +1,65 @@
+package cc.irori.core;
+
+import cc.irori.shodo.TextBox;
+import com.hypixel.hytale.server.core.ui.builder.UICommandBuilder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Typeset shigen HUD content, built once per shigen id and shared by every player's {@link ShigenHud}.
+ */
+public final class ShigenHudContent {
+
+    private static final String UI_FILE = "Irori/Shigen.ui";
+    private static final String CONTAINER = "#ShigenContainer";
+
+    private static final Map<Integer, ShigenHudContent> CACHE = new ConcurrentHashMap<>();
+
+    private final int shigenId;
+    private final TextBox textBox = TextBox.builder()
+            .setWidth(400)
+            .setHeight(400)
+            .setCleanupPeriodSeconds(0)
+            .build();
+
+    private ShigenHudContent(int shigenId) {
+        this.shigenId = shigenId;
+        // Safely published through the cache map, render is the only access after this
+        textBox.typesetter().addMessage("/spawn → 資源ワールドを出る", Colors.SKY_LIGHT);
+        textBox.typesetter().addMessage("資源ワールド" + shigenId + " (リセットあり)", Colors.SCARLET_LIGHT);
+    }
+
+    public static ShigenHudContent get(int shigenId) {
+        ShigenHudContent content = CACHE.get(shigenId);
+        if (content == null) {
+            content = CACHE.computeIfAbsent(shigenId, ShigenHudContent::new);
+        }
+        return content;
+    }
+
+    public static void evict(int shigenId) {
+        CACHE.remove(shigenId);
+    }
+
+    public static void clear() {
+        CACHE.clear();
+    }
+
+    public static int size() {
+        return CACHE.size();
+    }
+
+    public int getShigenId() {
+        return shigenId;
+    }
+
+    /**
+     * Synchronized because players in different worlds render the same content from their own world
+     * threads, and the text box keeps mutable typesetting state.
+     */
+    public synchronized void render(UICommandBuilder uiCommandBuilder) {
+        uiCommandBuilder.append(UI_FILE);
+        textBox.render(uiCommandBuilder, CONTAINER);
+    }
+}
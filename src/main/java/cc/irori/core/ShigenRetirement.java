@@ -0,0 +1,261 @@
+package cc.irori.core;
+
+import cc.irori.core.diagnostics.event.FilePassEvent;
+import cc.irori.core.maintenance.TreeDeletion;
+import cc.irori.core.message.Messages;
+import cc.irori.core.metrics.Metrics;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.math.vector.Transform;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.Universe;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Retires shigen worlds that have been superseded by {@link WorldRegistry#getNewestShigenWorld()},
+ * keeping a number of the most recent older ones.
+ * <p>
+ * A retired world that is still loaded is first evacuated: its players are sent to the default spawn
+ * through the {@link TeleportDispatcher}, which admits them in batches. Once it is empty it is unloaded,
+ * and its folder is deleted on a background thread with {@link TreeDeletion}. Every step is scheduled on
+ * the retirement thread, so a world that cannot be emptied or unloaded is simply retried on the next check.
+ */
+public class ShigenRetirement {
+
+    private static final HytaleLogger LOGGER = Logs.logger();
+
+    private static final long EVACUATE_POLL_SECONDS = 1;
+    private static final long EVACUATE_RETRY_SECONDS = 10;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "Irori-ShigenRetirement"));
+    private final ExecutorService deleter = Executors.newSingleThreadExecutor(r -> new Thread(r, "Irori-ShigenDelete"));
+
+    private final WorldRegistry worldRegistry;
+    private final TeleportDispatcher teleportDispatcher;
+    private final SpawnCache spawnCache;
+    private final TeleporterPruner teleporterPruner;
+    private final Path worldsDir;
+    private final Settings settings;
+
+    // Only touched from the retirement thread
+    private final Set<String> retiring = new HashSet<>();
+    private volatile boolean stopping = false;
+
+    public ShigenRetirement(WorldRegistry worldRegistry, TeleportDispatcher teleportDispatcher, SpawnCache spawnCache,
+                            TeleporterPruner teleporterPruner, Path universeDir, Settings settings) {
+        this.worldRegistry = worldRegistry;
+        this.teleportDispatcher = teleportDispatcher;
+        this.spawnCache = spawnCache;
+        this.teleporterPruner = teleporterPruner;
+        this.worldsDir = universeDir.resolve("worlds");
+        this.settings = settings;
+    }
+
+    public void start() {
+        executor.scheduleWithFixedDelay(this::check, settings.checkMinutes(), settings.checkMinutes(), TimeUnit.MINUTES);
+    }
+
+    /**
+     * Stops evacuations and cancels a running deletion, which is picked up again by the next check
+     * after a restart.
+     */
+    public void shutdown() {
+        stopping = true;
+        executor.shutdownNow();
+        deleter.shutdown();
+        try {
+            deleter.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void check() {
+        try {
+            World newest = worldRegistry.getNewestShigenWorld();
+            if (newest == null) {
+                return;
+            }
+            for (String name : getRetired(WorldRegistry.parseShigenId(newest.getName()))) {
+                if (retiring.add(name)) {
+                    LOGGER.atInfo().log("Retiring shigen world '%s', superseded by '%s'", name, newest.getName());
+                    retire(name, 0);
+                }
+            }
+        } catch (Exception e) {
+            LOGGER.atSevere().withCause(e).log("Failed to check for shigen worlds to retire");
+        }
+    }
+
+    /**
+     * @return names of the loaded or saved shigen worlds older than the newest one, past the retention
+     * count. Names are kept as found, e.g. {@code shigen007}, since they cannot be rebuilt from the id.
+     */
+    private List<String> getRetired(int newestId) throws IOException {
+        TreeMap<Integer, Set<String>> older = new TreeMap<>();
+        for (Map.Entry<Integer, World> entry : worldRegistry.getShigenWorlds().entrySet()) {
+            if (entry.getKey() < newestId) {
+                older.computeIfAbsent(entry.getKey(), id -> new HashSet<>()).add(entry.getValue().getName());
+            }
+        }
+        if (Files.isDirectory(worldsDir)) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(worldsDir, Files::isDirectory)) {
+                for (Path dir : stream) {
+                    String name = dir.getFileName().toString();
+                    int id = WorldRegistry.parseShigenId(name);
+                    if (id >= 0 && id < newestId) {
+                        older.computeIfAbsent(id, i -> new HashSet<>()).add(name);
+                    }
+                }
+            }
+        }
+
+        List<String> retired = new ArrayList<>();
+        int kept = 0;
+        for (Set<String> names : older.descendingMap().values()) {
+            if (kept < settings.retainOlder()) {
+                kept++;
+            } else {
+                retired.addAll(names);
+            }
+        }
+        return retired;
+    }
+
+    private void retire(String name, long waitedSeconds) {
+        World world = Universe.get().getWorld(name);
+        if (world == null) {
+            delete(name);
+            return;
+        }
+
+        if (!world.getPlayerRefs().isEmpty()) {
+            if (waitedSeconds >= settings.evacuateTimeoutSeconds()) {
+                LOGGER.atWarning().log("Could not evacuate shigen world '%s' within %ds, %d players remain, retrying on the next check",
+                        name, settings.evacuateTimeoutSeconds(), world.getPlayerRefs().size());
+                retiring.remove(name);
+                return;
+            }
+            // Players whose teleport was dropped, or who joined meanwhile, are sent again
+            if (waitedSeconds % EVACUATE_RETRY_SECONDS == 0) {
+                evacuate(world, waitedSeconds == 0);
+            }
+            executor.schedule(() -> retire(name, waitedSeconds + EVACUATE_POLL_SECONDS), EVACUATE_POLL_SECONDS, TimeUnit.SECONDS);
+            return;
+        }
+
+        if (!Universe.get().removeWorld(name)) {
+            LOGGER.atWarning().log("Could not unload shigen world '%s', retrying on the next check", name);
+            retiring.remove(name);
+            return;
+        }
+        LOGGER.atInfo().log("Unloaded shigen world '%s'", name);
+        // Give the world time to finish writing its chunks before the folder goes away
+        executor.schedule(() -> delete(name), settings.unloadSettleSeconds(), TimeUnit.SECONDS);
+    }
+
+    private void evacuate(World world, boolean notify) {
+        world.execute(() -> {
+            World defaultWorld = Universe.get().getDefaultWorld();
+            for (PlayerRef playerRef : world.getPlayerRefs()) {
+                Ref<EntityStore> ref = playerRef.getReference();
+                if (ref == null || !ref.isValid()) {
+                    continue;
+                }
+                if (notify) {
+                    Messages.SHIGEN_RETIRED.send(playerRef);
+                }
+                Store<EntityStore> store = ref.getStore();
+                Transform spawn = spawnCache.getSpawn(defaultWorld, ref, store);
+                teleportDispatcher.submit("retire", playerRef, ref, store, defaultWorld, spawn, Metrics.SHIGEN_EVACUATIONS::increment);
+            }
+        });
+    }
+
+    private void delete(String name) {
+        if (Universe.get().getWorld(name) != null) {
+            LOGGER.atWarning().log("Shigen world '%s' was loaded again, not deleting it", name);
+            retiring.remove(name);
+            return;
+        }
+        Path dir = worldsDir.resolve(name);
+        if (!Files.isDirectory(dir)) {
+            retiring.remove(name);
+            return;
+        }
+
+        CompletableFuture.supplyAsync(() -> {
+            FilePassEvent event = new FilePassEvent();
+            event.begin();
+            TreeDeletion.Result result;
+            try {
+                result = TreeDeletion.delete(dir, settings.deleteParallelism(), settings.deleteFilesPerSecond(), () -> stopping);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while deleting " + dir, e);
+            }
+            event.end();
+            if (event.shouldCommit()) {
+                event.world = name;
+                event.pass = "delete shigen world";
+                event.entries = result.files();
+                event.changed = result.files();
+                event.bytes = result.bytes();
+                event.commit();
+            }
+            return result;
+        }, deleter).whenCompleteAsync((result, throwable) -> {
+            retiring.remove(name);
+            if (throwable != null) {
+                LOGGER.atSevere().withCause(throwable).log("Failed to delete shigen world '%s'", name);
+                return;
+            }
+            Metrics.SHIGEN_BYTES_FREED.add(result.bytes());
+            if (result.cancelled()) {
+                LOGGER.atInfo().log("Stopped deleting shigen world '%s' after %d files, the rest is deleted after the restart",
+                        name, result.files());
+                return;
+            }
+            if (!result.isComplete()) {
+                LOGGER.atWarning().withCause(result.firstFailure()).log("Deleted %d files (%.1f MB) of shigen world '%s' in %.1fs, %d could not be deleted, retrying on the next check",
+                        result.files(), result.megabytes(), name, result.seconds(), result.failed());
+                return;
+            }
+            Metrics.SHIGEN_WORLDS_RETIRED.increment();
+            LOGGER.atInfo().log("Deleted shigen world '%s': %d files in %d directories, %.1f MB freed in %.1fs",
+                    name, result.files(), result.directories(), result.megabytes(), result.seconds());
+            // The folder is gone now, so the pruner no longer keeps its teleporters
+            teleporterPruner.worldRemoved(name);
+        }, executor);
+    }
+
+    /**
+     * @param retainOlder            superseded shigen worlds kept besides the newest one
+     * @param checkMinutes           how often to look for worlds to retire
+     * @param evacuateTimeoutSeconds how long to wait for a world to empty before trying again later
+     * @param unloadSettleSeconds    delay between unloading a world and deleting its folder
+     * @param deleteParallelism      directories deleted at once
+     * @param deleteFilesPerSecond   file deletions per second
+     */
+    public record Settings(int retainOlder, long checkMinutes, long evacuateTimeoutSeconds, long unloadSettleSeconds,
+                           int deleteParallelism, int deleteFilesPerSecond) {
+    }
+}
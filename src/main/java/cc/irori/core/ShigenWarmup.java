@@ -0,0 +1,261 @@
+package cc.irori.core;
+
+import cc.irori.core.diagnostics.WorldWatchdog;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.math.util.ChunkUtil;
+import com.hypixel.hytale.math.vector.Transform;
+import com.hypixel.hytale.math.vector.Vector3d;
+import com.hypixel.hytale.server.core.universe.Universe;
+import com.hypixel.hytale.server.core.universe.world.World;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates shigen worlds ahead of time and loads the chunks around their spawn at a throttled rate.
+ * A warming world is hidden from {@link WorldRegistry#getNewestShigenWorld()} until every chunk has loaded.
+ */
+public class ShigenWarmup {
+
+    private static final HytaleLogger LOGGER = Logs.logger();
+
+    private static final long STEP_MILLIS = 100;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "Irori-ShigenWarmup"));
+    private final Map<String, Progress> progress = new ConcurrentHashMap<>();
+    // World being created by prepareNext, not yet in progress nor counted by the registry
+    private @Nullable String creating;
+
+    private final WorldRegistry worldRegistry;
+    private final WorldWatchdog worldWatchdog;
+    private final Settings settings;
+
+    public ShigenWarmup(WorldRegistry worldRegistry, WorldWatchdog worldWatchdog, Settings settings) {
+        this.worldRegistry = worldRegistry;
+        this.worldWatchdog = worldWatchdog;
+        this.settings = settings;
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public Map<String, Progress> getProgress() {
+        return progress;
+    }
+
+    /**
+     * Creates the shigen world after the highest existing one and warms it up.
+     *
+     * @return the name of the world being created, or null if one is already being created or warming up
+     */
+    public synchronized @Nullable String prepareNext() {
+        if (creating != null) {
+            return null;
+        }
+        for (Progress running : progress.values()) {
+            if (!running.isDone()) {
+                return null;
+            }
+        }
+
+        String name = "shigen" + (worldRegistry.getHighestShigenId() + 1);
+        // Marked by someone else, its warming flag is not ours to clear
+        if (worldRegistry.isWarming(name)) {
+            return null;
+        }
+        creating = name;
+        worldRegistry.markWarming(name);
+        LOGGER.atInfo().log("Creating shigen world '%s' ahead of rotation", name);
+        Universe.get().addWorld(name).whenComplete((world, throwable) -> {
+            try {
+                if (throwable != null) {
+                    LOGGER.atSevere().withCause(throwable).log("Failed to create shigen world '%s'", name);
+                    worldRegistry.markReady(name);
+                    return;
+                }
+                start(world);
+            } finally {
+                created(name);
+            }
+        });
+        return name;
+    }
+
+    private synchronized void created(String name) {
+        if (name.equals(creating)) {
+            creating = null;
+        }
+    }
+
+    /**
+     * Hides the world from {@code /shigen} and starts loading its spawn area.
+     */
+    public synchronized void start(World world) {
+        String name = world.getName();
+        if (progress.containsKey(name)) {
+            return;
+        }
+        worldRegistry.markWarming(name);
+
+        Vector3d center = getSpawnPosition(world);
+        int centerX = ChunkUtil.chunkCoordinate(center.getX());
+        int centerZ = ChunkUtil.chunkCoordinate(center.getZ());
+
+        // Nearest chunks first, so the area around spawn is usable even if warm-up is cut short
+        int radius = settings.radiusChunks();
+        List<long[]> offsets = new ArrayList<>();
+        for (int dx = -radius; dx <= radius; dx++) {
+            for (int dz = -radius; dz <= radius; dz++) {
+                if (dx * dx + dz * dz <= radius * radius) {
+                    offsets.add(new long[]{dx, dz, (long) dx * dx + (long) dz * dz});
+                }
+            }
+        }
+        offsets.sort(Comparator.comparingLong(offset -> offset[2]));
+        long[] chunks = new long[offsets.size()];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = ChunkUtil.indexChunk(centerX + (int) offsets.get(i)[0], centerZ + (int) offsets.get(i)[1]);
+        }
+
+        Progress task = new Progress(world, chunks);
+        progress.put(name, task);
+        LOGGER.atInfo().log("Warming up %d chunks around spawn of '%s'", chunks.length, name);
+        task.future = executor.scheduleWithFixedDelay(() -> step(task), 0, STEP_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public void forget(World world) {
+        Progress task = progress.remove(world.getName());
+        if (task != null && task.future != null) {
+            task.future.cancel(false);
+        }
+    }
+
+    private void step(Progress task) {
+        try {
+            if (task.loaded.get() >= task.chunks.length) {
+                finish(task);
+                return;
+            }
+
+            task.paused = isLagging(task.world) || isLagging(Universe.get().getDefaultWorld());
+            if (task.paused) {
+                return;
+            }
+
+            int budget = Math.min(settings.chunksPerStep(), settings.maxInFlight() - task.inFlight.get());
+            for (int i = 0; i < budget && task.next < task.chunks.length; i++) {
+                long index = task.chunks[task.next++];
+                task.inFlight.incrementAndGet();
+                CompletableFuture<?> future = task.world.getChunkAsync(index);
+                future.whenComplete((chunk, throwable) -> {
+                    task.inFlight.decrementAndGet();
+                    if (throwable != null) {
+                        task.failed.incrementAndGet();
+                    }
+                    task.loaded.incrementAndGet();
+                });
+            }
+        } catch (Exception e) {
+            LOGGER.atSevere().withCause(e).log("Warm-up of '%s' failed, releasing it as is", task.world.getName());
+            finish(task);
+        }
+    }
+
+    private void finish(Progress task) {
+        if (task.finishedAt != 0) {
+            return;
+        }
+        task.finishedAt = System.currentTimeMillis();
+        if (task.future != null) {
+            task.future.cancel(false);
+        }
+        worldRegistry.markReady(task.world.getName());
+        LOGGER.atInfo().log("Warm-up of '%s' finished: %d chunks in %.1fs (%d failed)",
+                task.world.getName(), task.loaded.get(), (task.finishedAt - task.startedAt) / 1000.0D, task.failed.get());
+    }
+
+    private boolean isLagging(@Nullable World world) {
+        if (world == null) {
+            return false;
+        }
+        WorldWatchdog.WorldProbe probe = worldWatchdog.getProbe(world);
+        return probe != null && probe.getPendingNanos() > TimeUnit.MILLISECONDS.toNanos(settings.pauseLatencyMillis());
+    }
+
+    private static Vector3d getSpawnPosition(World world) {
+        try {
+            Transform spawn = world.getWorldConfig().getSpawnProvider().getSpawnPoint(world, new UUID(0, 0));
+            return spawn.getPosition();
+        } catch (Exception e) {
+            LOGGER.atWarning().withCause(e).log("Could not resolve spawn of '%s', warming up around the origin", world.getName());
+            return new Vector3d(0, 0, 0);
+        }
+    }
+
+    public static final class Progress {
+
+        private final World world;
+        private final long[] chunks;
+        private final long startedAt = System.currentTimeMillis();
+        private final AtomicInteger loaded = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        // Only touched from the warm-up thread
+        private int next = 0;
+        private ScheduledFuture<?> future;
+
+        private volatile boolean paused = false;
+        private volatile long finishedAt = 0;
+
+        private Progress(World world, long[] chunks) {
+            this.world = world;
+            this.chunks = chunks;
+        }
+
+        public String getWorldName() {
+            return world.getName();
+        }
+
+        public int getTotal() {
+            return chunks.length;
+        }
+
+        public int getLoaded() {
+            return loaded.get();
+        }
+
+        public boolean isPaused() {
+            return paused;
+        }
+
+        public boolean isDone() {
+            return finishedAt != 0;
+        }
+
+        public long getElapsedMillis() {
+            return (finishedAt != 0 ? finishedAt : System.currentTimeMillis()) - startedAt;
+        }
+    }
+
+    /**
+     * @param radiusChunks        radius around spawn to load, in chunks
+     * @param chunksPerStep       chunks requested per step, one step every 100ms
+     * @param maxInFlight         chunk requests that may be outstanding at once
+     * @param pauseLatencyMillis  world queue latency above which warm-up pauses
+     */
+    public record Settings(int radiusChunks, int chunksPerStep, int maxInFlight, long pauseLatencyMillis) {
+    }
+}
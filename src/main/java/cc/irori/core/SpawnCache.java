@@ -0,0 +1,127 @@
+package cc.irori.core;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.math.util.ChunkUtil;
+import com.hypixel.hytale.math.vector.Transform;
+import com.hypixel.hytale.math.vector.Vector3d;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.WorldConfig;
+import com.hypixel.hytale.server.core.universe.world.spawn.GlobalSpawnProvider;
+import com.hypixel.hytale.server.core.universe.world.spawn.ISpawnProvider;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolved spawn transform per world, with the chunks around it kept loaded.
+ * <p>
+ * An entry is dropped when its world is removed, and re-resolved when the world's config or spawn
+ * provider instance changes. Only providers that give every player the same spawn are cached, any
+ * other provider is asked again for each player.
+ */
+public class SpawnCache {
+
+    private static final HytaleLogger LOGGER = Logs.logger();
+
+    private static final int PIN_RADIUS_CHUNKS = 1;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "Irori-SpawnCache"));
+    private final Map<World, Entry> entries = new ConcurrentHashMap<>();
+
+    private final long pinRefreshSeconds;
+
+    public SpawnCache(long pinRefreshSeconds) {
+        this.pinRefreshSeconds = pinRefreshSeconds;
+    }
+
+    public void start() {
+        executor.scheduleWithFixedDelay(this::refreshPins, pinRefreshSeconds, pinRefreshSeconds, TimeUnit.SECONDS);
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+        entries.clear();
+    }
+
+    public Transform getSpawn(World world, Ref<EntityStore> ref, Store<EntityStore> store) {
+        WorldConfig config = world.getWorldConfig();
+        ISpawnProvider provider = config.getSpawnProvider();
+        if (!isPlayerIndependent(provider)) {
+            return provider.getSpawnPoint(ref, store);
+        }
+
+        Entry entry = entries.get(world);
+        if (entry != null && entry.config == config && entry.provider == provider) {
+            return entry.spawn;
+        }
+
+        Transform spawn = provider.getSpawnPoint(ref, store);
+        entry = new Entry(config, provider, spawn, spawnChunks(spawn.getPosition()));
+        entries.put(world, entry);
+        pin(world, entry);
+        LOGGER.atInfo().log("Cached spawn of '%s' at %s", world.getName(), spawn.getPosition());
+        return spawn;
+    }
+
+    public void invalidate(World world) {
+        entries.remove(world);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * A global provider has one fixed spawn. Others may pick a spawn per player, e.g. from a list of
+     * individual spawn points.
+     */
+    private static boolean isPlayerIndependent(ISpawnProvider provider) {
+        return provider instanceof GlobalSpawnProvider;
+    }
+
+    private void refreshPins() {
+        try {
+            for (Map.Entry<World, Entry> entry : entries.entrySet()) {
+                pin(entry.getKey(), entry.getValue());
+            }
+        } catch (Exception e) {
+            LOGGER.atWarning().withCause(e).log("Failed to refresh pinned spawn chunks");
+        }
+    }
+
+    /**
+     * Requests the spawn chunks so they are loaded again if the world unloaded them since the last refresh.
+     */
+    private static void pin(World world, Entry entry) {
+        for (long index : entry.chunks) {
+            world.getChunkAsync(index);
+        }
+    }
+
+    private static long[] spawnChunks(Vector3d position) {
+        int centerX = ChunkUtil.chunkCoordinate(position.getX());
+        int centerZ = ChunkUtil.chunkCoordinate(position.getZ());
+        int size = PIN_RADIUS_CHUNKS * 2 + 1;
+        long[] chunks = new long[size * size];
+        int i = 0;
+        for (int dx = -PIN_RADIUS_CHUNKS; dx <= PIN_RADIUS_CHUNKS; dx++) {
+            for (int dz = -PIN_RADIUS_CHUNKS; dz <= PIN_RADIUS_CHUNKS; dz++) {
+                chunks[i++] = ChunkUtil.indexChunk(centerX + dx, centerZ + dz);
+            }
+        }
+        return chunks;
+    }
+
+    private record Entry(WorldConfig config, ISpawnProvider provider, Transform spawn, long[] chunks) {
+    }
+}
@@ -0,0 +1,174 @@
+package cc.irori.core;
+
+import cc.irori.core.diagnostics.event.TeleportEvent;
+import cc.irori.core.message.Messages;
+import cc.irori.core.metrics.Metrics;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.math.vector.Transform;
+import com.hypixel.hytale.server.core.modules.entity.teleport.Teleport;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admits command teleports into each target world at a fixed number per tick. Requests over the
+ * budget wait in a per-world queue, and a player can only have one request waiting at a time.
+ */
+public class TeleportDispatcher {
+
+    private static final HytaleLogger LOGGER = Logs.logger();
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "Irori-TeleportDispatcher"));
+    private final Map<World, WorldQueue> queues = new ConcurrentHashMap<>();
+    private final Map<UUID, Request> waiting = new ConcurrentHashMap<>();
+
+    private final long tickMillis;
+    private final int teleportsPerTick;
+
+    public TeleportDispatcher(long tickMillis, int teleportsPerTick) {
+        this.tickMillis = tickMillis;
+        this.teleportsPerTick = teleportsPerTick;
+    }
+
+    public void start() {
+        executor.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+        queues.clear();
+        waiting.clear();
+    }
+
+    /**
+     * Teleports the player now if the target world has budget left this tick, otherwise queues the request.
+     * Must be called on the player's world thread.
+     *
+     * @param command the command that asked for the teleport, for diagnostics
+     * @param onTeleported run on the player's world thread right after the teleport is issued
+     */
+    public void submit(String command, PlayerRef playerRef, Ref<EntityStore> ref, Store<EntityStore> store, World target, Transform spawn, Runnable onTeleported) {
+        UUID uuid = playerRef.getUuid();
+        Request existing = waiting.get(uuid);
+        if (existing != null) {
+            Metrics.TELEPORTS_DEDUPLICATED.increment();
+            int position = existing.queue.positionOf(existing);
+            Messages.TELEPORT_ALREADY_QUEUED.send(playerRef, String.valueOf(position));
+            return;
+        }
+
+        WorldQueue queue = queues.computeIfAbsent(target, world -> new WorldQueue());
+        Request request = new Request(uuid, playerRef.getUsername(), command, ref, store, target, spawn, onTeleported, queue, System.nanoTime());
+
+        int position;
+        synchronized (queue) {
+            if (queue.requests.isEmpty() && queue.admitted < teleportsPerTick) {
+                queue.admitted++;
+                position = 0;
+            } else {
+                queue.requests.addLast(request);
+                waiting.put(uuid, request);
+                position = queue.requests.size();
+            }
+        }
+
+        if (position == 0) {
+            Metrics.TELEPORT_WAIT.recordNanos(0);
+            teleport(request);
+            return;
+        }
+        Metrics.TELEPORTS_QUEUED.increment();
+        Messages.TELEPORT_QUEUED.send(playerRef, String.valueOf(position));
+    }
+
+    /**
+     * Drops requests waiting to enter a world that is being removed.
+     */
+    public void forget(World world) {
+        WorldQueue queue = queues.remove(world);
+        if (queue == null) {
+            return;
+        }
+        synchronized (queue) {
+            for (Request request : queue.requests) {
+                waiting.remove(request.uuid, request);
+            }
+            queue.requests.clear();
+        }
+    }
+
+    public int getQueueDepth() {
+        return waiting.size();
+    }
+
+    private void tick() {
+        try {
+            for (WorldQueue queue : queues.values()) {
+                synchronized (queue) {
+                    queue.admitted = 0;
+                    while (queue.admitted < teleportsPerTick && !queue.requests.isEmpty()) {
+                        Request request = queue.requests.pollFirst();
+                        waiting.remove(request.uuid, request);
+                        queue.admitted++;
+                        Metrics.TELEPORT_WAIT.recordNanos(System.nanoTime() - request.submittedAt);
+                        request.store.getExternalData().getWorld().execute(() -> teleport(request));
+                    }
+                }
+            }
+        } catch (Exception e) {
+            LOGGER.atSevere().withCause(e).log("Teleport dispatcher tick failed");
+        }
+    }
+
+    private static void teleport(Request request) {
+        // The player may have left or changed worlds while waiting
+        if (!request.ref.isValid()) {
+            return;
+        }
+        long queuedNanos = System.nanoTime() - request.submittedAt;
+        TeleportEvent event = new TeleportEvent();
+        event.begin();
+        Teleport teleport = Teleport.createForPlayer(request.target, request.spawn);
+        request.store.addComponent(request.ref, Teleport.getComponentType(), teleport);
+        request.onTeleported.run();
+        event.end();
+        if (event.shouldCommit()) {
+            event.player = request.username;
+            event.world = request.target.getName();
+            event.command = request.command;
+            event.queuedNanos = queuedNanos;
+            event.commit();
+        }
+    }
+
+    private static final class WorldQueue {
+
+        private final ArrayDeque<Request> requests = new ArrayDeque<>();
+        private int admitted = 0;
+
+        private synchronized int positionOf(Request request) {
+            int position = 1;
+            for (Request queued : requests) {
+                if (queued == request) {
+                    return position;
+                }
+                position++;
+            }
+            return position;
+        }
+    }
+
+    private record Request(UUID uuid, String username, String command, Ref<EntityStore> ref, Store<EntityStore> store,
+                           World target, Transform spawn, Runnable onTeleported, WorldQueue queue, long submittedAt) {
+    }
+}
@@ -0,0 +1,112 @@
+package cc.irori.core;
+
+import cc.irori.core.diagnostics.event.FilePassEvent;
+import cc.irori.core.maintenance.TeleporterIndex;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.universe.Universe;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prunes teleporters and warps of removed worlds in the background, using a {@link TeleporterIndex}
+ * to skip files that have no entries for the world.
+ * <p>
+ * Worlds are also removed when they are only unloaded, so a world is pruned only once its folder is
+ * gone after a grace period. Every access to the index and the files runs on the pruner's thread.
+ */
+public class TeleporterPruner {
+
+    private static final HytaleLogger LOGGER = Logs.logger();
+
+    private final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> new Thread(r, "Irori-TeleporterPruner"));
+    private final TeleporterIndex index;
+    private final Path worldsDir;
+    private final long graceSeconds;
+
+    public TeleporterPruner(Path universeDir, long graceSeconds) {
+        this.index = new TeleporterIndex(universeDir);
+        this.worldsDir = universeDir.resolve("worlds");
+        this.graceSeconds = graceSeconds;
+        // Worlds removed while the server stops are only unloaded, their prunes are dropped
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    public void start() {
+        executor.execute(() -> {
+            try {
+                long start = System.nanoTime();
+                index.build();
+                LOGGER.atInfo().log("Indexed teleporters and warps of %d worlds in %.2fs",
+                        index.getWorldCount(), (System.nanoTime() - start) / 1_000_000_000.0D);
+            } catch (Exception e) {
+                LOGGER.atWarning().withCause(e).log("Failed to index teleporters, they are counted again on the first prune");
+            }
+        });
+    }
+
+    /**
+     * Lets pending prunes finish writing their files.
+     */
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public void worldRemoved(String world) {
+        if (executor.isShutdown()) {
+            return;
+        }
+        executor.schedule(() -> prune(world), graceSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Runs a task that reads or rewrites the teleporter files on the pruner's thread.
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                future.complete(task.call());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+
+    public TeleporterIndex getIndex() {
+        return index;
+    }
+
+    private void prune(String world) {
+        if (Universe.get().getWorld(world) != null || Files.exists(worldsDir.resolve(world))) {
+            LOGGER.atInfo().log("Keeping teleporters of '%s', the world still exists", world);
+            return;
+        }
+        try {
+            FilePassEvent event = new FilePassEvent();
+            event.begin();
+            TeleporterIndex.Pruned pruned = index.prune(world);
+            event.end();
+            if (event.shouldCommit()) {
+                event.world = world;
+                event.pass = "prune teleporters";
+                event.changed = pruned.teleporters() + pruned.warps();
+                event.commit();
+            }
+            LOGGER.atInfo().log("Pruned %d teleporters and %d warps of removed world '%s' in %.2fs",
+                    pruned.teleporters(), pruned.warps(), world, pruned.seconds());
+        } catch (Exception e) {
+            LOGGER.atSevere().withCause(e).log("Failed to prune teleporters of removed world '%s'", world);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package cc.irori.core;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.universe.Universe;
+import com.hypixel.hytale.server.core.universe.world.World;
+
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Keeps track of loaded worlds and which of them are shigen worlds.
+ * Updated from world add/remove events so lookups never have to scan the universe.
+ */
+public class WorldRegistry {
+
+    private static final HytaleLogger LOGGER = Logs.logger();
+
+    private static final String SHIGEN_PREFIX = "shigen";
+
+    private static final WorldInfo DEFAULT = new WorldInfo(Kind.DEFAULT, 0);
+    private static final WorldInfo OTHER = new WorldInfo(Kind.OTHER, 0);
+
+    private final Map<World, WorldInfo> infos = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Integer, World> shigenWorlds = new ConcurrentSkipListMap<>();
+    // Shigen worlds that exist but must not be handed out until their spawn area is warmed up
+    private final Set<String> warming = ConcurrentHashMap.newKeySet();
+
+    private volatile World newestShigenWorld;
+
+    public synchronized void add(World world) {
+        WorldInfo info = classify(world);
+        infos.put(world, info);
+        if (info.isShigen()) {
+            shigenWorlds.put(info.shigenId(), world);
+            refreshNewest();
+        }
+    }
+
+    public synchronized @Nullable WorldInfo remove(World world) {
+        WorldInfo info = infos.remove(world);
+        if (info != null && info.isShigen()) {
+            shigenWorlds.remove(info.shigenId(), world);
+            refreshNewest();
+        }
+        return info;
+    }
+
+    public synchronized void markWarming(String worldName) {
+        warming.add(worldName);
+        refreshNewest();
+    }
+
+    public synchronized void markReady(String worldName) {
+        if (warming.remove(worldName)) {
+            refreshNewest();
+        }
+    }
+
+    public boolean isWarming(String worldName) {
+        return warming.contains(worldName);
+    }
+
+    /**
+     * @return the highest shigen id in use, including worlds that are still warming up, or 0 if there is none
+     */
+    public int getHighestShigenId() {
+        Map.Entry<Integer, World> highest = shigenWorlds.lastEntry();
+        return highest != null ? highest.getKey() : 0;
+    }
+
+    public synchronized void clear() {
+        infos.clear();
+        shigenWorlds.clear();
+        warming.clear();
+        newestShigenWorld = null;
+    }
+
+    public WorldInfo info(World world) {
+        WorldInfo info = infos.get(world);
+        if (info == null) {
+            // Not seen through an event yet, classify now and remember it
+            info = infos.computeIfAbsent(world, WorldRegistry::classify);
+        }
+        return info;
+    }
+
+    public @Nullable World getNewestShigenWorld() {
+        return newestShigenWorld;
+    }
+
+    public NavigableMap<Integer, World> getShigenWorlds() {
+        return Collections.unmodifiableNavigableMap(shigenWorlds);
+    }
+
+    private void refreshNewest() {
+        World newest = null;
+        for (World world : shigenWorlds.descendingMap().values()) {
+            if (!warming.contains(world.getName())) {
+                newest = world;
+                break;
+            }
+        }
+        newestShigenWorld = newest;
+    }
+
+    private static WorldInfo classify(World world) {
+        if (world == Universe.get().getDefaultWorld()) {
+            return DEFAULT;
+        }
+        String name = world.getName();
+        int id = parseShigenId(name);
+        if (id >= 0) {
+            return new WorldInfo(Kind.SHIGEN, id);
+        }
+        if (hasShigenPrefix(name)) {
+            LOGGER.atWarning().log("World '%s' looks like a shigen world but has no numeric id, it is not tracked as one", name);
+        }
+        return OTHER;
+    }
+
+    public static boolean hasShigenPrefix(String worldName) {
+        return worldName.startsWith(SHIGEN_PREFIX);
+    }
+
+    /**
+     * Parses the id out of a {@code shigenN} world name.
+     *
+     * @return the id, or -1 if the name is not a well-formed shigen world name
+     */
+    public static int parseShigenId(String worldName) {
+        int length = worldName.length();
+        if (length <= SHIGEN_PREFIX.length() || !worldName.startsWith(SHIGEN_PREFIX)) {
+            return -1;
+        }
+        // At most 9 digits so the id always fits in an int
+        if (length - SHIGEN_PREFIX.length() > 9) {
+            return -1;
+        }
+        int id = 0;
+        for (int i = SHIGEN_PREFIX.length(); i < length; i++) {
+            char c = worldName.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            id = id * 10 + (c - '0');
+        }
+        return id;
+    }
+
+    public enum Kind {
+        DEFAULT,
+        SHIGEN,
+        OTHER
+    }
+
+    public record WorldInfo(Kind kind, int shigenId) {
+
+        public boolean isShigen() {
+            return kind == Kind.SHIGEN;
+        }
+    }
+}
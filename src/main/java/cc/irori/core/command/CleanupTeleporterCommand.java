@@ -1,11 +1,13 @@
 package cc.irori.core.command;
 
+import cc.irori.core.CorePlugin;
 import cc.irori.core.Logs;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
-import com.google.gson.stream.JsonReader;
+import cc.irori.core.TeleporterPruner;
+import cc.irori.core.diagnostics.event.FilePassEvent;
+import cc.irori.core.job.Job;
+import cc.irori.core.maintenance.JsonArrayFilter;
+import cc.irori.core.maintenance.TeleporterCleanup;
+import cc.irori.core.maintenance.TeleporterIndex;
 import com.hypixel.hytale.logger.HytaleLogger;
 import com.hypixel.hytale.server.core.Message;
 import com.hypixel.hytale.server.core.command.system.CommandContext;
@@ -14,85 +16,130 @@ import com.hypixel.hytale.server.core.universe.Universe;
 import com.hypixel.hytale.server.core.universe.world.World;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
-import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
 
 public class CleanupTeleporterCommand extends CommandBase {
 
     private static final HytaleLogger LOGGER = Logs.logger();
 
+    private static final Path UNIVERSE_DIR = Path.of("universe");
+
     public CleanupTeleporterCommand() {
         super("cleanupteleporter", "Cleans up the teleporter system");
     }
 
     @Override
     protected void executeSync(@NonNull CommandContext context) {
-        LOGGER.atInfo().log("Clearing ExtendedTeleportHistory teleporters");
-        int removed1 = 0;
-        File file = new File("universe/ExtendedTeleportHistory/Teleporters.json");
-        try (JsonReader reader = new JsonReader(new FileReader(file))) {
-            JsonObject root = JsonParser.parseReader(reader).getAsJsonObject();
-            JsonArray array = root.getAsJsonArray("Teleporters");
-            ArrayList<JsonElement> toRemove = new ArrayList<>();
-            for (JsonElement element : array) {
-                JsonObject teleporter = element.getAsJsonObject();
-                String dimension = teleporter.get("Dimension").getAsString();
+        // Snapshot the live world names on the command thread, the file passes only need the set
+        Set<String> liveWorlds = new HashSet<>();
+        for (Map.Entry<String, World> entry : Universe.get().getWorlds().entrySet()) {
+            liveWorlds.add(entry.getKey());
+            liveWorlds.add(entry.getValue().getName());
+        }
 
-                World world = Universe.get().getWorld(dimension);
-                if (world == null) {
-                    LOGGER.atInfo().log("Clearing teleporter in world '%s'", dimension);
-                    toRemove.add(element);
-                    removed1++;
+        TeleporterPruner pruner = CorePlugin.get().getTeleporterPruner();
+        Job submitted = CorePlugin.get().getJobs().submit("cleanupteleporter", context, job -> {
+            // The file work runs on the pruner's thread so it never races an automatic prune
+            try {
+                pruner.submit(() -> {
+                    checkDrift(job, pruner.getIndex());
+                    job.checkCancelled();
+                    run(job, liveWorlds);
+                    pruner.getIndex().build();
+                    return null;
+                }).get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof Exception cause) {
+                    throw cause;
                 }
+                throw e;
             }
-            toRemove.forEach(array::remove);
+        });
+        if (submitted == null) {
+            context.sendMessage(Message.raw("Teleporter cleanup is already running."));
+            return;
+        }
+        context.sendMessage(Message.raw("Cleaning up teleporters in the background as job #" + submitted.getId() + "..."));
+    }
 
-            // Save the modified JSON back to the file
-            try (FileWriter writer = new FileWriter(file)) {
-                writer.write(root.toString());
-            } catch (IOException e) {
-                LOGGER.atSevere().withCause(e).log("An error occurred while saving cleaned teleporters");
-                context.sendMessage(Message.raw("An error occurred while saving cleaned teleporters: " + e.getMessage()));
-            }
+    /**
+     * Reports worlds whose teleporter counts in the files no longer match the index, which means
+     * something changed the files that the automatic pruning did not see.
+     */
+    private static void checkDrift(Job job, TeleporterIndex index) throws IOException {
+        List<TeleporterIndex.Drift> drift = index.checkDrift();
+        if (drift.isEmpty()) {
+            job.reply("Teleporter index matches the files.");
+            return;
+        }
+        job.reply(String.format("Teleporter index drifted for %d worlds:", drift.size()));
+        for (TeleporterIndex.Drift entry : drift) {
+            String line = String.format("  %s in '%s': %d indexed, %d in the file", entry.source(), entry.world(), entry.indexed(), entry.actual());
+            LOGGER.atInfo().log("Teleporter index drift: %s", line.strip());
+            job.reply(line);
+        }
+    }
+
+    private static void run(Job job, Set<String> liveWorlds) {
+        LOGGER.atInfo().log("Clearing ExtendedTeleportHistory teleporters");
+        JsonArrayFilter.Result teleporters = null;
+        try {
+            FilePassEvent event = new FilePassEvent();
+            event.begin();
+            teleporters = TeleporterCleanup.cleanTeleporters(UNIVERSE_DIR, liveWorlds);
+            commit(event, "cleanupteleporter teleporters", teleporters);
+            report("ExtendedTeleportHistory", teleporters);
         } catch (Exception e) {
             LOGGER.atSevere().withCause(e).log("An error occurred while cleaning up teleporters");
-            context.sendMessage(Message.raw("An error occurred while cleaning up teleporters: " + e.getMessage()));
+            job.reply("An error occurred while cleaning up teleporters: " + e.getMessage());
         }
 
+        job.checkCancelled();
         LOGGER.atInfo().log("Clearing vanilla teleporters");
-        File oldFile = new File("universe/warps.json");
-        int removed2 = 0;
-        try (JsonReader reader = new JsonReader(new FileReader(oldFile))) {
-            JsonObject root = JsonParser.parseReader(reader).getAsJsonObject();
-            JsonArray array = root.getAsJsonArray("Warps");
-            ArrayList<JsonElement> toRemove = new ArrayList<>();
-            for (JsonElement element : array) {
-                JsonObject warp = element.getAsJsonObject();
-                String worldName = warp.get("World").getAsString();
-
-                World world = Universe.get().getWorld(worldName);
-                if (world == null) {
-                    LOGGER.atInfo().log("Clearing teleporter in world '%s'", worldName);
-                    toRemove.add(element);
-                    removed2++;
-                }
-            }
-            toRemove.forEach(array::remove);
-
-            // Save the modified JSON back to the file
-            try (FileWriter writer = new FileWriter(oldFile)) {
-                writer.write(root.toString());
-            } catch (IOException e) {
-                LOGGER.atSevere().withCause(e).log("An error occurred while saving cleaned teleporters");
-                context.sendMessage(Message.raw("An error occurred while saving cleaned teleporters: " + e.getMessage()));
-            }
+        JsonArrayFilter.Result warps = null;
+        try {
+            FilePassEvent event = new FilePassEvent();
+            event.begin();
+            warps = TeleporterCleanup.cleanWarps(UNIVERSE_DIR, liveWorlds);
+            commit(event, "cleanupteleporter warps", warps);
+            report("vanilla", warps);
         } catch (Exception e) {
             LOGGER.atSevere().withCause(e).log("An error occurred while cleaning up teleporters");
-            context.sendMessage(Message.raw("An error occurred while cleaning up teleporters: " + e.getMessage()));
+            job.reply("An error occurred while cleaning up teleporters: " + e.getMessage());
+        }
+
+        job.reply(String.format("Removed %d ETH teleporters and %d vanilla teleporters",
+                teleporters != null ? teleporters.removed() : 0,
+                warps != null ? warps.removed() : 0));
+        if (teleporters != null && warps != null) {
+            double seconds = teleporters.seconds() + warps.seconds();
+            int entries = teleporters.kept() + teleporters.removed() + warps.kept() + warps.removed();
+            double megabytes = (teleporters.bytes() + warps.bytes()) / (1024.0D * 1024.0D);
+            job.reply(String.format("Processed %d entries (%.2f MB) in %.2fs: %.0f entries/s, %.2f MB/s",
+                    entries, megabytes, seconds, entries / Math.max(seconds, 1.0E-9D), megabytes / Math.max(seconds, 1.0E-9D)));
         }
-        context.sendMessage(Message.raw(String.format("Removed %d ETH teleporters and %d vanilla teleporters", removed1, removed2)));
+    }
+
+    private static void commit(FilePassEvent event, String pass, JsonArrayFilter.Result result) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.pass = pass;
+            event.entries = result.kept() + result.removed();
+            event.changed = result.removed();
+            event.bytes = result.bytes();
+            event.commit();
+        }
+    }
+
+    private static void report(String kind, JsonArrayFilter.Result result) {
+        LOGGER.atInfo().log("Cleared %d of %d %s teleporters in %.2fs (%.0f entries/s, %.2f MB/s)",
+                result.removed(), result.kept() + result.removed(), kind,
+                result.seconds(), result.entriesPerSecond(), result.megabytesPerSecond());
     }
 }
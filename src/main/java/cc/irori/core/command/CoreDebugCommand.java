@@ -13,6 +13,12 @@ public class CoreDebugCommand extends CommandBase {
         super("coredebug", "A debug command.");
 
         setPermissionGroups("irori.core.debug");
+
+        addSubCommand(new DebugLatencyCommand());
+        addSubCommand(new DebugStallsCommand());
+        addSubCommand(new DebugWarmupCommand());
+        addSubCommand(new DebugRecordingCommand());
+        addSubCommand(new DebugProfileCommand());
     }
 
     @Override
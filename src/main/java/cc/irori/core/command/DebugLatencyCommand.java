@@ -0,0 +1,55 @@
+package cc.irori.core.command;
+
+import cc.irori.core.CorePlugin;
+import cc.irori.core.diagnostics.LatencyHistogram;
+import cc.irori.core.diagnostics.WorldWatchdog;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.basecommands.CommandBase;
+import org.checkerframework.checker.nullness.compatqual.NonNullDecl;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+public class DebugLatencyCommand extends CommandBase {
+
+    public DebugLatencyCommand() {
+        super("latency", "Shows world thread queue latency per world.");
+
+        setPermissionGroups("irori.core.debug");
+    }
+
+    @Override
+    protected void executeSync(@NonNullDecl CommandContext context) {
+        List<WorldWatchdog.WorldProbe> probes = new ArrayList<>(CorePlugin.get().getWorldWatchdog().getProbes().values());
+        if (probes.isEmpty()) {
+            context.sendMessage(Message.raw("No world latency samples yet."));
+            return;
+        }
+        probes.sort(Comparator.comparing(WorldWatchdog.WorldProbe::getWorldName));
+
+        context.sendMessage(Message.raw("World queue latency (p50 / p99 / max):"));
+        for (WorldWatchdog.WorldProbe probe : probes) {
+            LatencyHistogram histogram = probe.getHistogram();
+            String line = String.format("  %s: %s / %s / %s (%d samples)",
+                    probe.getWorldName(),
+                    formatMicros(histogram.percentileMicros(50)),
+                    formatMicros(histogram.percentileMicros(99)),
+                    formatMicros(histogram.maxMicros()),
+                    histogram.count());
+            long pendingMillis = probe.getPendingNanos() / 1_000_000;
+            if (pendingMillis >= 1000) {
+                line += " - probe pending for " + pendingMillis + "ms";
+            }
+            context.sendMessage(Message.raw(line));
+        }
+    }
+
+    private static String formatMicros(long micros) {
+        if (micros >= 1000) {
+            return String.format("%.1fms", micros / 1000.0D);
+        }
+        return micros + "us";
+    }
+}
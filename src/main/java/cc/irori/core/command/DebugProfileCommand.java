@@ -0,0 +1,117 @@
+package cc.irori.core.command;
+
+import cc.irori.core.CorePlugin;
+import cc.irori.core.diagnostics.SamplingProfiler;
+import cc.irori.core.diagnostics.WorldWatchdog;
+import cc.irori.core.job.Job;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.arguments.system.OptionalArg;
+import com.hypixel.hytale.server.core.command.system.arguments.system.RequiredArg;
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgTypes;
+import com.hypixel.hytale.server.core.command.system.basecommands.CommandBase;
+import com.hypixel.hytale.server.core.universe.Universe;
+import com.hypixel.hytale.server.core.universe.world.World;
+import org.checkerframework.checker.nullness.compatqual.NonNullDecl;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public class DebugProfileCommand extends CommandBase {
+
+    private static final int DEFAULT_SAMPLES_PER_SECOND = 100;
+    // Each sample stops the thread, at higher rates the overhead cap skips most of them anyway
+    private static final int MAX_SAMPLES_PER_SECOND = 1000;
+    private static final double MAX_OVERHEAD = 0.02D;
+    private static final int MAX_STACK_DEPTH = 256;
+    private static final int MAX_SECONDS = 300;
+    private static final long THREAD_LOOKUP_SECONDS = 5;
+
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final RequiredArg<String> worldArg = withRequiredArg("world", "World to profile", ArgTypes.STRING);
+    private final RequiredArg<Integer> secondsArg = withRequiredArg("seconds", "How long to sample, at most " + MAX_SECONDS, ArgTypes.INTEGER);
+    private final OptionalArg<Integer> rateArg = withOptionalArg("rate", "Samples per second, " + DEFAULT_SAMPLES_PER_SECOND + " by default and at most " + MAX_SAMPLES_PER_SECOND, ArgTypes.INTEGER);
+
+    public DebugProfileCommand() {
+        super("profile", "Samples a world thread and writes a collapsed-stack profile.");
+
+        setPermissionGroups("irori.core.debug");
+    }
+
+    @Override
+    protected void executeSync(@NonNullDecl CommandContext context) {
+        String worldName = context.get(worldArg);
+        int seconds = context.get(secondsArg);
+        int samplesPerSecond = context.provided(rateArg) ? context.get(rateArg) : DEFAULT_SAMPLES_PER_SECOND;
+        World world = Universe.get().getWorld(worldName);
+        if (world == null) {
+            context.sendMessage(Message.raw("No world named " + worldName + "."));
+            return;
+        }
+        if (seconds < 1 || seconds > MAX_SECONDS) {
+            context.sendMessage(Message.raw("Profile for 1 to " + MAX_SECONDS + " seconds."));
+            return;
+        }
+        if (samplesPerSecond < 1 || samplesPerSecond > MAX_SAMPLES_PER_SECOND) {
+            context.sendMessage(Message.raw("Sample 1 to " + MAX_SAMPLES_PER_SECOND + " times per second."));
+            return;
+        }
+
+        Path file = CorePlugin.get().getDataDirectory().resolve("profiles")
+                .resolve(worldName.replaceAll("[^A-Za-z0-9_.-]", "_") + "-" + LocalDateTime.now().format(FILE_TIME) + ".collapsed");
+        // Only one profile at a time, which also keeps the sampling overhead bounded
+        Job submitted = CorePlugin.get().getJobs().submit("profile", context, job -> {
+            Thread thread = findThread(world);
+            job.progress(String.format("Sampling '%s' (%s) for %ds at %d Hz", worldName, thread.getName(), seconds, samplesPerSecond));
+
+            SamplingProfiler profiler = new SamplingProfiler(thread.threadId(), MAX_STACK_DEPTH);
+            SamplingProfiler.Result result = profiler.run(Duration.ofSeconds(seconds), samplesPerSecond, MAX_OVERHEAD, job::isCancelled);
+            job.checkCancelled();
+
+            write(profiler, file);
+            job.reply(String.format("Profiled '%s' for %.1fs: %d samples (%d skipped to keep overhead at %.1f%%), %d distinct frames",
+                    worldName, result.seconds(), result.samples(), result.skipped(), result.overhead() * 100.0D, result.frames()));
+            job.reply("Collapsed stacks written to " + file.toAbsolutePath());
+        });
+        if (submitted == null) {
+            context.sendMessage(Message.raw("A profile is already running."));
+            return;
+        }
+        context.sendMessage(Message.raw(String.format("Profiling '%s' for %ds as job #%d...", worldName, seconds, submitted.getId())));
+    }
+
+    /**
+     * Uses the thread the watchdog knows of, or asks the world for it if the watchdog has none.
+     */
+    private static Thread findThread(World world) throws Exception {
+        WorldWatchdog.WorldProbe probe = CorePlugin.get().getWorldWatchdog().getProbe(world);
+        Thread known = probe != null ? probe.getThread() : null;
+        if (known != null) {
+            return known;
+        }
+        CompletableFuture<Thread> thread = new CompletableFuture<>();
+        world.execute(() -> thread.complete(Thread.currentThread()));
+        try {
+            return thread.get(THREAD_LOOKUP_SECONDS, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("World '" + world.getName() + "' did not run a task within " + THREAD_LOOKUP_SECONDS + "s");
+        }
+    }
+
+    private static void write(SamplingProfiler profiler, Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            profiler.writeCollapsed(out);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package cc.irori.core.command;
+
+import cc.irori.core.CorePlugin;
+import cc.irori.core.diagnostics.FlightRecording;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.basecommands.CommandBase;
+import org.checkerframework.checker.nullness.compatqual.NonNullDecl;
+
+import java.time.Duration;
+
+public class DebugRecordingCommand extends CommandBase {
+
+    public DebugRecordingCommand() {
+        super("recording", "Shows the state of the flight recording.");
+
+        setPermissionGroups("irori.core.debug");
+
+        addSubCommand(new DebugRecordingStartCommand());
+        addSubCommand(new DebugRecordingStopCommand());
+        addSubCommand(new DebugRecordingDumpCommand());
+    }
+
+    @Override
+    protected void executeSync(@NonNullDecl CommandContext context) {
+        FlightRecording recording = CorePlugin.get().getFlightRecording();
+        Duration elapsed = recording.getElapsed();
+        if (elapsed == null) {
+            context.sendMessage(Message.raw("No flight recording is running."));
+            return;
+        }
+        context.sendMessage(Message.raw(String.format("Flight recording running for %dm %ds, %.1f MB, dumps go to %s",
+                elapsed.toMinutes(), elapsed.toSecondsPart(), recording.getSize() / (1024.0D * 1024.0D), recording.getDirectory())));
+    }
+}
@@ -0,0 +1,35 @@
+package cc.irori.core.command;
+
+import cc.irori.core.CorePlugin;
+import cc.irori.core.job.Job;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.basecommands.CommandBase;
+import org.checkerframework.checker.nullness.compatqual.NonNullDecl;
+
+import java.nio.file.Path;
+
+public class DebugRecordingDumpCommand extends CommandBase {
+
+    public DebugRecordingDumpCommand() {
+        super("dump", "Writes the flight recording so far to disk and keeps recording.");
+
+        setPermissionGroups("irori.core.debug");
+    }
+
+    @Override
+    protected void executeSync(@NonNullDecl CommandContext context) {
+        if (!CorePlugin.get().getFlightRecording().isRunning()) {
+            context.sendMessage(Message.raw("No flight recording is running."));
+            return;
+        }
+        // Writing a large recording takes a while, keep it off the command thread
+        Job submitted = CorePlugin.get().getJobs().submit("recording", context, job -> {
+            Path file = CorePlugin.get().getFlightRecording().dump();
+            job.reply(file != null ? "Flight recording written to " + file : "The flight recording was stopped meanwhile.");
+        });
+        if (submitted == null) {
+            context.sendMessage(Message.raw("The flight recording is already being written."));
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package cc.irori.core.command;
+
+import cc.irori.core.CorePlugin;
+import cc.irori.core.Logs;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.basecommands.CommandBase;
+import org.checkerframework.checker.nullness.compatqual.NonNullDecl;
+
+public class DebugRecordingStartCommand extends CommandBase {
+
+    private static final HytaleLogger LOGGER = Logs.logger();
+
+    public DebugRecordingStartCommand() {
+        super("start", "Starts a flight recording.");
+
+        setPermissionGroups("irori.core.debug");
+    }
+
+    @Override
+    protected void executeSync(@NonNullDecl CommandContext context) {
+        try {
+            if (CorePlugin.get().getFlightRecording().start()) {
+                context.sendMessage(Message.raw("Flight recording started."));
+            } else {
+                context.sendMessage(Message.raw("A flight recording is already running."));
+            }
+        } catch (Exception e) {
+            LOGGER.atSevere().withCause(e).log("Failed to start the flight recording");
+            context.sendMessage(Message.raw("Failed to start the flight recording: " + e.getMessage()));
+        }
+    }
+}
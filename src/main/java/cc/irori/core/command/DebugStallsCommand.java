@@ -0,0 +1,48 @@
+package cc.irori.core.command;
+
+import cc.irori.core.CorePlugin;
+import cc.irori.core.diagnostics.WorldWatchdog;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.basecommands.CommandBase;
+import org.checkerframework.checker.nullness.compatqual.NonNullDecl;
+
+import java.util.List;
+
+public class DebugStallsCommand extends CommandBase {
+
+    public DebugStallsCommand() {
+        super("stalls", "Lists recent world thread stalls.");
+
+        setPermissionGroups("irori.core.debug");
+    }
+
+    @Override
+    protected void executeSync(@NonNullDecl CommandContext context) {
+        List<WorldWatchdog.StallDump> stalls = CorePlugin.get().getWorldWatchdog().getStalls();
+        if (stalls.isEmpty()) {
+            context.sendMessage(Message.raw("No world stalls recorded."));
+            return;
+        }
+
+        context.sendMessage(Message.raw("Recent world stalls (newest first, full stacks are in the server log):"));
+        for (WorldWatchdog.StallDump stall : stalls) {
+            String stack = stall.stack();
+            int firstFrames = nthIndexOf(stack, '\n', 4);
+            context.sendMessage(Message.raw(String.format("  [%s] %s, %dms late\n%s",
+                    stall.time(), stall.worldName(), stall.lateMillis(),
+                    firstFrames > 0 ? stack.substring(0, firstFrames) : stack)));
+        }
+    }
+
+    private static int nthIndexOf(String string, char c, int n) {
+        int index = -1;
+        for (int i = 0; i < n; i++) {
+            index = string.indexOf(c, index + 1);
+            if (index < 0) {
+                return -1;
+            }
+        }
+        return index;
+    }
+}
@@ -0,0 +1,50 @@
+package cc.irori.core.command;
+
+import cc.irori.core.CorePlugin;
+import cc.irori.core.ShigenWarmup;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.arguments.system.FlagArg;
+import com.hypixel.hytale.server.core.command.system.basecommands.CommandBase;
+import org.checkerframework.checker.nullness.compatqual.NonNullDecl;
+
+import java.util.Collection;
+
+public class DebugWarmupCommand extends CommandBase {
+
+    private final FlagArg prepareArg = withFlagArg("prepare", "Create the next shigen world and start warming it up");
+
+    public DebugWarmupCommand() {
+        super("warmup", "Shows shigen world warm-up progress.");
+
+        setPermissionGroups("irori.core.debug");
+    }
+
+    @Override
+    protected void executeSync(@NonNullDecl CommandContext context) {
+        ShigenWarmup warmup = CorePlugin.get().getShigenWarmup();
+
+        if (context.provided(prepareArg)) {
+            String name = warmup.prepareNext();
+            if (name == null) {
+                context.sendMessage(Message.raw("A shigen world is already warming up."));
+            } else {
+                context.sendMessage(Message.raw("Creating " + name + " and warming it up."));
+            }
+            return;
+        }
+
+        Collection<ShigenWarmup.Progress> progress = warmup.getProgress().values();
+        if (progress.isEmpty()) {
+            context.sendMessage(Message.raw("No shigen world has been warmed up since startup."));
+            return;
+        }
+        for (ShigenWarmup.Progress task : progress) {
+            String status = task.isDone() ? "done" : task.isPaused() ? "paused (world lagging)" : "running";
+            context.sendMessage(Message.raw(String.format("%s: %d/%d chunks (%.0f%%), %s, %.1fs",
+                    task.getWorldName(), task.getLoaded(), task.getTotal(),
+                    task.getTotal() > 0 ? task.getLoaded() * 100.0D / task.getTotal() : 100.0D,
+                    status, task.getElapsedMillis() / 1000.0D)));
+        }
+    }
+}
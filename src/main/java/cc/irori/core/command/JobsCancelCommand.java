@@ -0,0 +1,28 @@
+package cc.irori.core.command;
+
+import cc.irori.core.CorePlugin;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.arguments.system.RequiredArg;
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgTypes;
+import com.hypixel.hytale.server.core.command.system.basecommands.CommandBase;
+import org.checkerframework.checker.nullness.compatqual.NonNullDecl;
+
+public class JobsCancelCommand extends CommandBase {
+
+    private final RequiredArg<Integer> idArg = withRequiredArg("id", "Job number", ArgTypes.INTEGER);
+
+    public JobsCancelCommand() {
+        super("cancel", "Asks a job to stop at its next cancellation point.");
+    }
+
+    @Override
+    protected void executeSync(@NonNullDecl CommandContext context) {
+        int id = context.get(idArg);
+        if (CorePlugin.get().getJobs().cancel(id)) {
+            context.sendMessage(Message.raw("Cancelling job #" + id + "."));
+        } else {
+            context.sendMessage(Message.raw("No running job #" + id + "."));
+        }
+    }
+}
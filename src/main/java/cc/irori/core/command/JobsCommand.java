@@ -0,0 +1,36 @@
+package cc.irori.core.command;
+
+import cc.irori.core.CorePlugin;
+import cc.irori.core.job.Job;
+import cc.irori.core.job.JobManager;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.basecommands.CommandBase;
+import org.checkerframework.checker.nullness.compatqual.NonNullDecl;
+
+import java.util.List;
+
+public class JobsCommand extends CommandBase {
+
+    public JobsCommand() {
+        super("jobs", "Lists background jobs.");
+
+        addSubCommand(new JobsInfoCommand());
+        addSubCommand(new JobsCancelCommand());
+    }
+
+    @Override
+    protected void executeSync(@NonNullDecl CommandContext context) {
+        JobManager jobs = CorePlugin.get().getJobs();
+        List<Job> list = jobs.list();
+        if (list.isEmpty()) {
+            context.sendMessage(Message.raw("No jobs since startup."));
+            return;
+        }
+        context.sendMessage(Message.raw(String.format("%d running, %d queued", jobs.getActiveCount(), jobs.getQueuedCount())));
+        for (Job job : list) {
+            context.sendMessage(Message.raw(String.format("#%d %s: %s, %.1fs",
+                    job.getId(), job.getName(), job.getState(), job.getElapsedMillis() / 1000.0D)));
+        }
+    }
+}
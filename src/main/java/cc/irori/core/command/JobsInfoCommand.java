@@ -0,0 +1,40 @@
+package cc.irori.core.command;
+
+import cc.irori.core.CorePlugin;
+import cc.irori.core.job.Job;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.arguments.system.RequiredArg;
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgTypes;
+import com.hypixel.hytale.server.core.command.system.basecommands.CommandBase;
+import org.checkerframework.checker.nullness.compatqual.NonNullDecl;
+
+public class JobsInfoCommand extends CommandBase {
+
+    private final RequiredArg<Integer> idArg = withRequiredArg("id", "Job number", ArgTypes.INTEGER);
+
+    public JobsInfoCommand() {
+        super("info", "Shows the state and latest progress of a job.");
+    }
+
+    @Override
+    protected void executeSync(@NonNullDecl CommandContext context) {
+        int id = context.get(idArg);
+        Job job = CorePlugin.get().getJobs().get(id);
+        if (job == null) {
+            context.sendMessage(Message.raw("No job #" + id + "."));
+            return;
+        }
+        context.sendMessage(Message.raw(String.format("#%d %s: %s", job.getId(), job.getName(), job.getState())));
+        context.sendMessage(Message.raw(String.format("  queued %.1fs, ran %.1fs", job.getQueuedMillis() / 1000.0D, job.getElapsedMillis() / 1000.0D)));
+        if (!job.getProgress().isEmpty()) {
+            context.sendMessage(Message.raw("  progress: " + job.getProgress()));
+        }
+        if (job.getError() != null) {
+            context.sendMessage(Message.raw("  error: " + job.getError()));
+        }
+        if (job.isCancelled() && !job.getState().isDone()) {
+            context.sendMessage(Message.raw("  cancellation requested"));
+        }
+    }
+}
@@ -1,33 +1,29 @@
 package cc.irori.core.command;
 
-import cc.irori.core.Logs;
+import cc.irori.core.CorePlugin;
+import cc.irori.core.diagnostics.event.FilePassEvent;
+import cc.irori.core.job.Job;
+import cc.irori.core.maintenance.LevelMigration;
+import cc.irori.core.maintenance.LevelTarget;
 import com.azuredoom.levelingcore.api.LevelingCoreApi;
 import com.azuredoom.levelingcore.level.LevelServiceImpl;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
-import com.google.gson.stream.JsonReader;
-import com.hypixel.hytale.logger.HytaleLogger;
 import com.hypixel.hytale.server.core.Message;
 import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.arguments.system.FlagArg;
 import com.hypixel.hytale.server.core.command.system.basecommands.CommandBase;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
-import java.io.File;
-import java.io.FileReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Optional;
 import java.util.UUID;
 
 public class MigrateLevelCommand extends CommandBase {
 
-    // Old system
-    private static final double LEVEL_BASE_XP = 50.0D;
-    private static final double LEVEL_OFFSET = 0.0D;
+    private static final Path PLAYERS_DIR = Path.of("universe", "players");
+    private static final Path JOURNAL_FILE = Path.of("universe", "MigrateLevel.journal");
 
-    // New system
-    private static final double LEVEL_MIGRATION_FACTOR = 1.0D;
-    private static final int STAT_POINTS_PER_LEVEL = 3;
-
-    private static final HytaleLogger LOGGER = Logs.logger();
+    private final FlagArg dryRunArg = withFlagArg("dryrun", "Compute the migration without writing to LevelingCore");
 
     public MigrateLevelCommand() {
         super("migratelevel", "Migrate RPGLeveling data to LevelingCore.");
@@ -41,95 +37,62 @@ public class MigrateLevelCommand extends CommandBase {
             return;
         }
 
-        LevelServiceImpl api = apiOptional.get();
-        File playersDir = new File("universe/players");
-        File[] playerFiles = playersDir.listFiles((dir, name) -> name.endsWith(".json"));
-
-        if (playerFiles == null || playerFiles.length == 0) {
+        if (!Files.isDirectory(PLAYERS_DIR)) {
             context.sendMessage(Message.raw("No player data found."));
             return;
         }
 
-        for (File playerFile : playerFiles) {
-            String uuidStr = playerFile.getName().replace(".json", "");
-            UUID uuid = UUID.fromString(uuidStr);
-
-            context.sendMessage(Message.raw("Migrating: " + uuid));
-            try (JsonReader reader = new JsonReader(new FileReader(playerFile))) {
-                JsonObject root = JsonParser.parseReader(reader).getAsJsonObject();
-                JsonObject components = root.getAsJsonObject("Components");
-                JsonObject playerLevel = components.getAsJsonObject("PlayerLevelData");
-
-                int oldLevel = playerLevel.get("Level").getAsInt();
-                double oldExperience = playerLevel.get("Experience").getAsDouble();
-                double xpProgress = oldExperience / xpNeededForNextLevel(oldLevel);
-
-                int newLevel = (int) Math.floor(oldLevel * LEVEL_MIGRATION_FACTOR);
-
-                long currentLevelXp = api.getXpForLevel(newLevel);
-                long nextLevelXp = api.getXpForLevel(newLevel + 1);
-                long newXp = currentLevelXp + Math.round((nextLevelXp - currentLevelXp) * xpProgress);
-                int abilityPoints = calculateAbilityPoints(newLevel);
-
-                context.sendMessage(Message.join(
-                        Message.raw("  - Level: " + newLevel + "\n"),
-                        Message.raw("  - Level Progress: " + (xpProgress * 100) + "%\n"),
-                        Message.raw("  - New XP: " + newXp + "\n"),
-                        Message.raw("  - Ability Points: " + abilityPoints)
-                ));
-
-                if (newLevel > 0) {
-                    api.setLevel(uuid, newLevel);
-                    api.setXp(uuid, newXp);
-                    api.setUsedAbilityPoints(uuid, 0);
-                    api.setAbilityPoints(uuid, abilityPoints);
-
-                    api.setAgi(uuid, 0);
-                    api.setCon(uuid, 0);
-                    api.setInt(uuid, 0);
-                    api.setPer(uuid, 0);
-                    api.setStr(uuid, 0);
-                    api.setVit(uuid, 0);
-                }
-            } catch (Exception e) {
-                context.sendMessage(Message.raw("Failed to migrate " + uuid + ": " + e.getMessage()));
-                LOGGER.atSevere().withCause(e).log("Error migrating player data for UUID: " + uuid);
+        boolean dryRun = context.provided(dryRunArg);
+        LevelingCoreTarget target = new LevelingCoreTarget(apiOptional.get());
+        Job submitted = CorePlugin.get().getJobs().submit("migratelevel", context, job -> {
+            LevelMigration migration = new LevelMigration(target, CorePlugin.get().getPlayerIndex(), JOURNAL_FILE, dryRun,
+                    job::progress, job::isCancelled);
+            FilePassEvent event = new FilePassEvent();
+            event.begin();
+            LevelMigration.Summary summary = migration.run();
+            event.end();
+            if (event.shouldCommit()) {
+                event.pass = dryRun ? "migratelevel dry run" : "migratelevel";
+                event.entries = summary.total();
+                event.changed = summary.migrated();
+                event.commit();
             }
+            job.reply(String.format(
+                    "Level migration %s: %d migrated, %d without level data, %d failed, %d resumed (%.0f files/s)",
+                    dryRun ? "dry run finished" : "finished",
+                    summary.migrated(), summary.skipped(), summary.failed(), summary.resumed(), summary.filesPerSecond()));
+        });
+        if (submitted == null) {
+            context.sendMessage(Message.raw("Level migration is already running."));
+            return;
         }
+        context.sendMessage(Message.raw(String.format("Starting level migration%s as job #%d...", dryRun ? " (dry run)" : "", submitted.getId())));
     }
 
-    private static double xpRequiredForLevel(int level) {
-        if (level <= 1) {
-            return 0.0D;
-        } else {
-            double xpRequired = LEVEL_BASE_XP * Math.pow((double)level, 2.5D) + LEVEL_OFFSET;
-            return xpRequired;
-        }
-    }
+    private record LevelingCoreTarget(LevelServiceImpl api) implements LevelTarget {
 
-    private static double xpNeededForNextLevel(int currentLevel) {
-        if (currentLevel >= 100) {
-            return 0.0D;
-        } else {
-            double xpForCurrent = xpRequiredForLevel(currentLevel);
-            double xpForNext = xpRequiredForLevel(currentLevel + 1);
-            double xpNeeded = xpForNext - xpForCurrent;
-            return xpNeeded;
+        @Override
+        public long getXpForLevel(int level) {
+            return api.getXpForLevel(level);
         }
-    }
 
-    private static int calculateAbilityPoints(int level) {
-        /*
-        int points = 0;
-        for (int i = 1; i <= level; i++) {
-            if (i % 5 == 0) {
-                points += 5;
-            } else {
-                points += 3;
+        @Override
+        public void apply(LevelMigration.Entry entry) {
+            if (entry.level() <= 0) {
+                return;
             }
+            UUID uuid = entry.uuid();
+            api.setLevel(uuid, entry.level());
+            api.setXp(uuid, entry.xp());
+            api.setUsedAbilityPoints(uuid, 0);
+            api.setAbilityPoints(uuid, entry.abilityPoints());
+
+            api.setAgi(uuid, 0);
+            api.setCon(uuid, 0);
+            api.setInt(uuid, 0);
+            api.setPer(uuid, 0);
+            api.setStr(uuid, 0);
+            api.setVit(uuid, 0);
         }
-        return points;
-        */
-        return STAT_POINTS_PER_LEVEL * level;
     }
 }
@@ -0,0 +1,41 @@
+package cc.irori.core.command;
+
+import cc.irori.core.CorePlugin;
+import cc.irori.core.maintenance.PlayerIndex;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.arguments.system.RequiredArg;
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgTypes;
+import com.hypixel.hytale.server.core.command.system.basecommands.CommandBase;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.util.Comparator;
+import java.util.List;
+
+public class PlayerLevelsCommand extends CommandBase {
+
+    private static final int MAX_LISTED = 10;
+
+    private final RequiredArg<Integer> levelArg = withRequiredArg("level", "Minimum RPGLeveling level", ArgTypes.INTEGER);
+
+    public PlayerLevelsCommand() {
+        super("playerlevels", "Lists players at or above a level from the player index.");
+    }
+
+    @Override
+    protected void executeSync(@NonNull CommandContext context) {
+        int minLevel = context.get(levelArg);
+        PlayerIndex index = CorePlugin.get().getPlayerIndex();
+
+        List<PlayerIndex.Entry> matches = index.query(entry -> entry.level() >= minLevel);
+        matches.sort(Comparator.comparingInt(PlayerIndex.Entry::level).reversed());
+
+        context.sendMessage(Message.raw(String.format("%d of %d indexed players are at level %d or above",
+                matches.size(), index.size(), minLevel)));
+        for (int i = 0; i < Math.min(matches.size(), MAX_LISTED); i++) {
+            PlayerIndex.Entry entry = matches.get(i);
+            context.sendMessage(Message.raw(String.format("  %s: level %d (%.0f xp), last in %s",
+                    entry.uuid(), entry.level(), entry.experience(), entry.lastWorld().isEmpty() ? "?" : entry.lastWorld())));
+        }
+    }
+}
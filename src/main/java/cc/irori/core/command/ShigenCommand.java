@@ -1,12 +1,13 @@
 package cc.irori.core.command;
 
 import cc.irori.core.CorePlugin;
+import cc.irori.core.metrics.Metrics;
 import com.hypixel.hytale.component.Ref;
 import com.hypixel.hytale.component.Store;
 import com.hypixel.hytale.math.vector.Transform;
+import com.hypixel.hytale.server.core.Message;
 import com.hypixel.hytale.server.core.command.system.CommandContext;
 import com.hypixel.hytale.server.core.command.system.basecommands.AbstractPlayerCommand;
-import com.hypixel.hytale.server.core.modules.entity.teleport.Teleport;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
 import com.hypixel.hytale.server.core.universe.world.World;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
@@ -21,8 +22,11 @@ public class ShigenCommand extends AbstractPlayerCommand {
     @Override
     protected void execute(@NonNullDecl CommandContext context, @NonNullDecl Store<EntityStore> store, @NonNullDecl Ref<EntityStore> ref, @NonNullDecl PlayerRef playerRef, @NonNullDecl World world) {
         World shigenWorld = CorePlugin.getNewestShigenWorld();
-        Transform spawn = shigenWorld.getWorldConfig().getSpawnProvider().getSpawnPoint(ref, store);
-        Teleport teleport = Teleport.createForPlayer(shigenWorld, spawn);
-        store.addComponent(ref, Teleport.getComponentType(), teleport);
+        if (shigenWorld == null) {
+            context.sendMessage(Message.raw("No shigen world is available right now."));
+            return;
+        }
+        Transform spawn = CorePlugin.get().getSpawnCache().getSpawn(shigenWorld, ref, store);
+        CorePlugin.get().getTeleportDispatcher().submit("shigen", playerRef, ref, store, shigenWorld, spawn, Metrics.SHIGEN_TELEPORTS::increment);
     }
 }
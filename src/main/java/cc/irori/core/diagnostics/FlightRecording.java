@@ -0,0 +1,137 @@
+package cc.irori.core.diagnostics;
+
+import cc.irori.core.Logs;
+import com.hypixel.hytale.logger.HytaleLogger;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * A single JDK Flight Recorder recording started and stopped from {@code /coredebug recording}. It uses
+ * the JDK's low-overhead "default" settings and keeps a rolling window on disk, plus every event in
+ * {@link cc.irori.core.diagnostics.event}.
+ */
+public class FlightRecording {
+
+    private static final HytaleLogger LOGGER = Logs.logger();
+
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final Path directory;
+    private final Duration maxAge;
+    private final long maxSizeBytes;
+
+    private @Nullable Recording recording;
+
+    public FlightRecording(Path directory, Duration maxAge, long maxSizeBytes) {
+        this.directory = directory;
+        this.maxAge = maxAge;
+        this.maxSizeBytes = maxSizeBytes;
+    }
+
+    /**
+     * @return false if a recording is already running
+     */
+    public synchronized boolean start() throws IOException {
+        if (isRunning()) {
+            return false;
+        }
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration("default");
+        } catch (ParseException e) {
+            throw new IOException("The JDK's default recording settings are invalid", e);
+        }
+        Recording started = new Recording(configuration);
+        started.setName("Irori-Manager");
+        started.setToDisk(true);
+        started.setMaxAge(maxAge);
+        started.setMaxSize(maxSizeBytes);
+        started.start();
+        recording = started;
+        LOGGER.atInfo().log("Started flight recording (max %d minutes, %d MB)", maxAge.toMinutes(), maxSizeBytes / (1024 * 1024));
+        return true;
+    }
+
+    /**
+     * Writes what has been recorded so far and keeps recording.
+     *
+     * @return the written file, or null if no recording is running
+     */
+    public synchronized @Nullable Path dump() throws IOException {
+        if (!isRunning()) {
+            return null;
+        }
+        Path file = nextFile();
+        recording.dump(file);
+        LOGGER.atInfo().log("Dumped flight recording to %s", file);
+        return file;
+    }
+
+    /**
+     * Stops the recording and writes it out.
+     *
+     * @return the written file, or null if no recording is running
+     */
+    public synchronized @Nullable Path stop() throws IOException {
+        if (!isRunning()) {
+            return null;
+        }
+        Recording stopped = recording;
+        recording = null;
+        try {
+            stopped.stop();
+            Path file = nextFile();
+            stopped.dump(file);
+            LOGGER.atInfo().log("Stopped flight recording, written to %s", file);
+            return file;
+        } finally {
+            stopped.close();
+        }
+    }
+
+    /**
+     * Writes out a running recording, so a stall right before a restart is not lost.
+     */
+    public void shutdown() {
+        try {
+            stop();
+        } catch (Exception e) {
+            LOGGER.atWarning().withCause(e).log("Failed to write the flight recording on shutdown");
+        }
+    }
+
+    public synchronized boolean isRunning() {
+        return recording != null && recording.getState() == RecordingState.RUNNING;
+    }
+
+    public synchronized @Nullable Duration getElapsed() {
+        if (!isRunning() || recording.getStartTime() == null) {
+            return null;
+        }
+        return Duration.between(recording.getStartTime(), Instant.now());
+    }
+
+    public synchronized long getSize() {
+        return recording != null ? recording.getSize() : 0;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    private Path nextFile() throws IOException {
+        Files.createDirectories(directory);
+        return directory.resolve("irori-" + LocalDateTime.now().format(FILE_TIME) + ".jfr");
+    }
+}
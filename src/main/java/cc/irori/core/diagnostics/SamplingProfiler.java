@@ -0,0 +1,179 @@
+package cc.irori.core.diagnostics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Samples one thread's stack through {@link ThreadMXBean} and aggregates the samples into a trie of
+ * frames, written out in the collapsed-stack format flame graph tools read ({@code a;b;c 42}).
+ * <p>
+ * The trie is stored in parallel arrays and frames are interned, so a long profile of a deep stack
+ * stays small. Samples are skipped while sampling has used more than its share of the elapsed time.
+ * Not thread-safe, a profile is run and written by one thread.
+ */
+public final class SamplingProfiler {
+
+    private static final int ROOT = 0;
+    private static final int NONE = 0;
+    private static final String TRUNCATED_FRAME = "[truncated]";
+
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final long threadId;
+    private final int maxDepth;
+
+    // Trie nodes, node 0 is the root and has no frame
+    private int[] frames = new int[256];
+    private int[] firstChildren = new int[256];
+    private int[] nextSiblings = new int[256];
+    private long[] selfCounts = new long[256];
+    private int nodes = 1;
+
+    private final Map<String, Integer> frameIds = new HashMap<>();
+    private final List<String> frameNames = new ArrayList<>();
+
+    public SamplingProfiler(long threadId, int maxDepth) {
+        this.threadId = threadId;
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Samples the thread until the duration is over, the thread ends or {@code cancelled} is true.
+     *
+     * @param maxOverhead fraction of the elapsed time sampling may take, e.g. 0.02
+     */
+    public Result run(Duration duration, int samplesPerSecond, double maxOverhead, BooleanSupplier cancelled) throws InterruptedException {
+        long intervalNanos = 1_000_000_000L / samplesPerSecond;
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        long next = start;
+        long samplingNanos = 0;
+        int samples = 0;
+        int skipped = 0;
+
+        long now = start;
+        while (now < end && !cancelled.getAsBoolean()) {
+            if (samplingNanos > maxOverhead * (now - start)) {
+                skipped++;
+            } else {
+                ThreadInfo info = threads.getThreadInfo(threadId, maxDepth);
+                samplingNanos += System.nanoTime() - now;
+                if (info == null) {
+                    // The thread ended
+                    break;
+                }
+                add(info.getStackTrace());
+                samples++;
+            }
+
+            next += intervalNanos;
+            now = System.nanoTime();
+            if (next > now) {
+                TimeUnit.NANOSECONDS.sleep(next - now);
+                now = System.nanoTime();
+            } else {
+                // Fell behind, don't try to catch up with a burst of samples
+                next = now;
+            }
+        }
+        return new Result(samples, skipped, nodes - 1, frameNames.size(), samplingNanos, now - start);
+    }
+
+    /**
+     * Writes one line per distinct stack: its frames from the outermost, separated by {@code ;}, then
+     * the number of samples that ended in it.
+     */
+    public void writeCollapsed(Writer out) throws IOException {
+        writeCollapsed(out, ROOT, new StringBuilder());
+    }
+
+    private void writeCollapsed(Writer out, int node, StringBuilder path) throws IOException {
+        int length = path.length();
+        if (node != ROOT) {
+            if (length > 0) {
+                path.append(';');
+            }
+            path.append(frameNames.get(frames[node]));
+            if (selfCounts[node] > 0) {
+                out.append(path).append(' ').append(Long.toString(selfCounts[node])).append('\n');
+            }
+        }
+        for (int child = firstChildren[node]; child != NONE; child = nextSiblings[child]) {
+            writeCollapsed(out, child, path);
+        }
+        path.setLength(length);
+    }
+
+    private void add(StackTraceElement[] stack) {
+        if (stack.length == 0) {
+            return;
+        }
+        int node = ROOT;
+        // The outermost frames are missing, keep such stacks apart from complete ones
+        if (stack.length >= maxDepth) {
+            node = child(node, frameId(TRUNCATED_FRAME));
+        }
+        for (int i = stack.length - 1; i >= 0; i--) {
+            StackTraceElement element = stack[i];
+            node = child(node, frameId(element.getClassName() + "." + element.getMethodName()));
+        }
+        selfCounts[node]++;
+    }
+
+    private int frameId(String name) {
+        Integer id = frameIds.get(name);
+        if (id == null) {
+            id = frameNames.size();
+            frameIds.put(name, id);
+            frameNames.add(name);
+        }
+        return id;
+    }
+
+    private int child(int parent, int frame) {
+        for (int child = firstChildren[parent]; child != NONE; child = nextSiblings[child]) {
+            if (frames[child] == frame) {
+                return child;
+            }
+        }
+        if (nodes == frames.length) {
+            int capacity = nodes * 2;
+            frames = Arrays.copyOf(frames, capacity);
+            firstChildren = Arrays.copyOf(firstChildren, capacity);
+            nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+            selfCounts = Arrays.copyOf(selfCounts, capacity);
+        }
+        int child = nodes++;
+        frames[child] = frame;
+        nextSiblings[child] = firstChildren[parent];
+        firstChildren[parent] = child;
+        return child;
+    }
+
+    /**
+     * @param nodes distinct stack prefixes in the trie
+     */
+    public record Result(int samples, int skipped, int nodes, int frames, long samplingNanos, long elapsedNanos) {
+
+        /**
+         * @return the fraction of the elapsed time spent taking samples
+         */
+        public double overhead() {
+            return elapsedNanos > 0 ? samplingNanos / (double) elapsedNanos : 0.0D;
+        }
+
+        public double seconds() {
+            return elapsedNanos / 1_000_000_000.0D;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package cc.irori.core.diagnostics;
+
+import cc.irori.core.Logs;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.universe.Universe;
+import com.hypixel.hytale.server.core.universe.world.World;
+
+import javax.annotation.Nullable;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Regularly posts a probe task to every world and records how long it waited in the world's queue.
+ * When a probe is late past the stall threshold, the world thread's stack is captured.
+ */
+public class WorldWatchdog {
+
+    private static final HytaleLogger LOGGER = Logs.logger();
+
+    private static final int MAX_STACK_DEPTH = 48;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "Irori-Watchdog"));
+    private final Map<String, WorldProbe> probes = new ConcurrentHashMap<>();
+    private final ArrayDeque<StallDump> stalls = new ArrayDeque<>();
+
+    private final long probeIntervalMillis;
+    private final long stallThresholdNanos;
+    private final int maxStallDumps;
+
+    public WorldWatchdog(long probeIntervalMillis, long stallThresholdMillis, int maxStallDumps) {
+        this.probeIntervalMillis = probeIntervalMillis;
+        this.stallThresholdNanos = TimeUnit.MILLISECONDS.toNanos(stallThresholdMillis);
+        this.maxStallDumps = maxStallDumps;
+    }
+
+    public void start() {
+        executor.scheduleWithFixedDelay(this::tick, probeIntervalMillis, probeIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public Map<String, WorldProbe> getProbes() {
+        return probes;
+    }
+
+    public @Nullable WorldProbe getProbe(World world) {
+        return probes.get(world.getName());
+    }
+
+    public List<StallDump> getStalls() {
+        synchronized (stalls) {
+            return new ArrayList<>(stalls);
+        }
+    }
+
+    public void reset() {
+        for (WorldProbe probe : probes.values()) {
+            probe.histogram.reset();
+        }
+        synchronized (stalls) {
+            stalls.clear();
+        }
+    }
+
+    private void tick() {
+        try {
+            Map<String, World> worlds = Universe.get().getWorlds();
+            probes.keySet().removeIf(name -> !worlds.containsKey(name));
+
+            long now = System.nanoTime();
+            for (World world : worlds.values()) {
+                // A frozen world does not drain its task queue until it is resumed, a late probe there is not a stall
+                if (!world.isTicking()) {
+                    probes.remove(world.getName());
+                    continue;
+                }
+                WorldProbe probe = probes.computeIfAbsent(world.getName(), WorldProbe::new);
+
+                long postedAt = probe.postedAt;
+                if (postedAt != 0) {
+                    // Previous probe has not run yet, do not pile more onto the queue
+                    long late = now - postedAt;
+                    if (late >= stallThresholdNanos && !probe.dumped) {
+                        probe.dumped = true;
+                        captureStall(probe, late);
+                    }
+                    continue;
+                }
+
+                probe.postedAt = now;
+                world.execute(() -> probe.complete(now));
+            }
+        } catch (Exception e) {
+            LOGGER.atSevere().withCause(e).log("World watchdog tick failed");
+        }
+    }
+
+    private void captureStall(WorldProbe probe, long lateNanos) {
+        Thread thread = probe.getThread();
+        StackTraceElement[] stack = thread != null ? thread.getStackTrace() : new StackTraceElement[0];
+
+        StringBuilder builder = new StringBuilder();
+        builder.append('"').append(thread != null ? thread.getName() : "unknown").append('"');
+        if (thread != null) {
+            builder.append(' ').append(thread.getState());
+        }
+        int depth = Math.min(stack.length, MAX_STACK_DEPTH);
+        for (int i = 0; i < depth; i++) {
+            builder.append("\n    at ").append(stack[i]);
+        }
+        if (stack.length > depth) {
+            builder.append("\n    ... ").append(stack.length - depth).append(" more");
+        }
+
+        StallDump dump = new StallDump(probe.worldName, Instant.now(), TimeUnit.NANOSECONDS.toMillis(lateNanos), builder.toString());
+        synchronized (stalls) {
+            stalls.addFirst(dump);
+            while (stalls.size() > maxStallDumps) {
+                stalls.removeLast();
+            }
+        }
+        LOGGER.atWarning().log("World '%s' has not run a task for %dms, thread dump:\n%s", dump.worldName(), dump.lateMillis(), dump.stack());
+    }
+
+    public static final class WorldProbe {
+
+        private final String worldName;
+        private final LatencyHistogram histogram = new LatencyHistogram();
+
+        private volatile long postedAt = 0;
+        private volatile boolean dumped = false;
+        private volatile Thread thread;
+
+        private WorldProbe(String worldName) {
+            this.worldName = worldName;
+        }
+
+        private void complete(long posted) {
+            long latency = System.nanoTime() - posted;
+            thread = Thread.currentThread();
+            histogram.recordNanos(latency);
+            if (dumped) {
+                LOGGER.atInfo().log("World '%s' recovered after %dms", worldName, TimeUnit.NANOSECONDS.toMillis(latency));
+                dumped = false;
+            }
+            postedAt = 0;
+        }
+
+        public String getWorldName() {
+            return worldName;
+        }
+
+        public LatencyHistogram getHistogram() {
+            return histogram;
+        }
+
+        /**
+         * @return the world's thread as of the last completed probe. Before one completed, e.g. for a new
+         * world stuck generating its first chunks, a live thread named after the world, or null if there is none
+         */
+        public @Nullable Thread getThread() {
+            Thread known = thread;
+            return known != null ? known : findThread(worldName);
+        }
+
+        /**
+         * @return how long the outstanding probe has been waiting, or 0 if none is outstanding
+         */
+        public long getPendingNanos() {
+            long posted = postedAt;
+            return posted != 0 ? System.nanoTime() - posted : 0;
+        }
+    }
+
+    /**
+     * Finds the only live thread whose name contains the world name as a whole word, so that
+     * {@code shigen1} does not match the thread of {@code shigen12}.
+     */
+    private static @Nullable Thread findThread(String worldName) {
+        Thread found = null;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (containsWord(thread.getName(), worldName)) {
+                if (found != null) {
+                    return null;
+                }
+                found = thread;
+            }
+        }
+        return found;
+    }
+
+    private static boolean containsWord(String text, String word) {
+        for (int i = text.indexOf(word); i >= 0; i = text.indexOf(word, i + 1)) {
+            int end = i + word.length();
+            if ((i == 0 || !Character.isLetterOrDigit(text.charAt(i - 1)))
+                    && (end == text.length() || !Character.isLetterOrDigit(text.charAt(end)))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public record StallDump(String worldName, Instant time, long lateMillis, String stack) {
+    }
+}
@@ -0,0 +1,24 @@
+package cc.irori.core.diagnostics.event;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+/**
+ * Base of the plugin's Flight Recorder events. While no recording is running, {@code begin()} and
+ * {@code commit()} are no-ops that the JIT removes.
+ */
+@Category({"Irori", "Core"})
+@StackTrace(false)
+public abstract class CoreEvent extends Event {
+
+    @Label("Player")
+    @Description("Username of the player the work was for, if any")
+    public String player;
+
+    @Label("World")
+    @Description("Name of the world the work was for, if any")
+    public String world;
+}
@@ -0,0 +1,27 @@
+package cc.irori.core.diagnostics.event;
+
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("cc.irori.core.FilePass")
+@Label("Admin File Pass")
+@Description("A pass over universe files by an admin command or a background service")
+public class FilePassEvent extends CoreEvent {
+
+    @Label("Pass")
+    public String pass;
+
+    @Label("Entries")
+    @Description("Entries or files processed")
+    public long entries;
+
+    @Label("Changed")
+    @Description("Entries removed or files re-read")
+    public long changed;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+}
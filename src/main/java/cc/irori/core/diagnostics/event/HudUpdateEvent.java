@@ -0,0 +1,18 @@
+package cc.irori.core.diagnostics.event;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("cc.irori.core.HudUpdate")
+@Label("Shigen HUD Update")
+@Description("A shigen HUD update, including skipped ones")
+public class HudUpdateEvent extends CoreEvent {
+
+    @Label("Shigen Id")
+    public int shigenId;
+
+    @Label("Outcome")
+    @Description("sent, cleared or skipped")
+    public String outcome;
+}
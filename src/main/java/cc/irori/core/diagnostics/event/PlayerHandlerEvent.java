@@ -0,0 +1,15 @@
+package cc.irori.core.diagnostics.event;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("cc.irori.core.PlayerHandler")
+@Label("Player Event Handler")
+@Description("Time spent in the plugin's handler of a player lifecycle event")
+public class PlayerHandlerEvent extends CoreEvent {
+
+    @Label("Handler")
+    @Description("Event class the handler listens to")
+    public String handler;
+}
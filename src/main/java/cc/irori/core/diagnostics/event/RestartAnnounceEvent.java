@@ -0,0 +1,17 @@
+package cc.irori.core.diagnostics.event;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("cc.irori.core.RestartAnnounce")
+@Label("Restart Announcement")
+@Description("Delivery of a restart countdown message to the players of one world")
+public class RestartAnnounceEvent extends CoreEvent {
+
+    @Label("Seconds Left")
+    public int secondsLeft;
+
+    @Label("Recipients")
+    public int recipients;
+}
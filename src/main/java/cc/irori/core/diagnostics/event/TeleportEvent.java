@@ -0,0 +1,20 @@
+package cc.irori.core.diagnostics.event;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+@Name("cc.irori.core.Teleport")
+@Label("Command Teleport")
+@Description("A teleport admitted by the teleport dispatcher, the world is the target world")
+public class TeleportEvent extends CoreEvent {
+
+    @Label("Command")
+    public String command;
+
+    @Label("Queued")
+    @Description("Time from the command to the teleport, including any wait in the queue")
+    @Timespan(Timespan.NANOSECONDS)
+    public long queuedNanos;
+}
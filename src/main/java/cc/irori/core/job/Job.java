@@ -0,0 +1,122 @@
+package cc.irori.core.job;
+
+import cc.irori.core.Logs;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A background task started by a command. Progress and results are posted back to the issuing
+ * {@link CommandContext}, and cancellation is cooperative: the task stops at its next {@link #checkCancelled()}.
+ */
+public final class Job {
+
+    private static final HytaleLogger LOGGER = Logs.logger();
+
+    private final int id;
+    private final String name;
+    private final CommandContext context;
+    private final long submittedAt = System.currentTimeMillis();
+    private final AtomicReference<JobState> state = new AtomicReference<>(JobState.QUEUED);
+
+    private volatile boolean cancelRequested = false;
+    private volatile String progress = "";
+    private volatile String error = null;
+    private volatile long startedAt = 0;
+    private volatile long finishedAt = 0;
+
+    Job(int id, String name, CommandContext context) {
+        this.id = id;
+        this.name = name;
+        this.context = context;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public JobState getState() {
+        return state.get();
+    }
+
+    public String getProgress() {
+        return progress;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public long getElapsedMillis() {
+        if (startedAt == 0) {
+            return 0;
+        }
+        return (finishedAt != 0 ? finishedAt : System.currentTimeMillis()) - startedAt;
+    }
+
+    public long getQueuedMillis() {
+        return (startedAt != 0 ? startedAt : System.currentTimeMillis()) - submittedAt;
+    }
+
+    public boolean isCancelled() {
+        return cancelRequested;
+    }
+
+    public void checkCancelled() {
+        if (cancelRequested) {
+            throw new CancellationException(name + " was cancelled");
+        }
+    }
+
+    /**
+     * Records the latest progress line and sends it to the issuer.
+     */
+    public void progress(String line) {
+        progress = line;
+        LOGGER.atInfo().log("[job #%d %s] %s", id, name, line);
+        context.sendMessage(Message.raw(line));
+    }
+
+    public void reply(String message) {
+        context.sendMessage(Message.raw(message));
+    }
+
+    /**
+     * @return false if the job had already finished
+     */
+    boolean cancel() {
+        if (state.get().isDone()) {
+            return false;
+        }
+        cancelRequested = true;
+        // A queued job never starts, a running one stops at its next cancellation point
+        if (state.compareAndSet(JobState.QUEUED, JobState.CANCELLED)) {
+            finishedAt = System.currentTimeMillis();
+        }
+        return true;
+    }
+
+    boolean start() {
+        if (!state.compareAndSet(JobState.QUEUED, JobState.RUNNING)) {
+            return false;
+        }
+        startedAt = System.currentTimeMillis();
+        return true;
+    }
+
+    void finish(JobState result, String error) {
+        this.error = error;
+        finishedAt = System.currentTimeMillis();
+        if (startedAt == 0) {
+            startedAt = finishedAt;
+        }
+        state.set(result);
+    }
+}
@@ -0,0 +1,141 @@
+package cc.irori.core.job;
+
+import cc.irori.core.Logs;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs command jobs on a bounded executor, at most one job per name at a time. Finished jobs are kept
+ * for {@code /jobs} until newer ones push them out.
+ */
+public class JobManager {
+
+    private static final HytaleLogger LOGGER = Logs.logger();
+
+    private final ThreadPoolExecutor executor;
+    private final Map<Integer, Job> jobs = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger(1);
+    private final int maxFinished;
+
+    public JobManager(int maxConcurrent, int maxQueued, int maxFinished) {
+        AtomicInteger threadId = new AtomicInteger(1);
+        this.executor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(maxQueued), r -> new Thread(r, "Irori-Job-" + threadId.getAndIncrement()));
+        this.maxFinished = maxFinished;
+    }
+
+    /**
+     * Cancels every job and waits briefly for running ones to reach a cancellation point.
+     */
+    public void shutdown() {
+        for (Job job : jobs.values()) {
+            job.cancel();
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                LOGGER.atWarning().log("Jobs did not stop within 10s: %s", list().stream().filter(job -> !job.getState().isDone()).map(Job::getName).toList());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        jobs.clear();
+    }
+
+    /**
+     * @return the new job, or null if a job with the same name is still queued or running
+     */
+    public synchronized @Nullable Job submit(String name, CommandContext context, JobTask task) {
+        for (Job job : jobs.values()) {
+            if (job.getName().equals(name) && !job.getState().isDone()) {
+                return null;
+            }
+        }
+
+        Job job = new Job(nextId.getAndIncrement(), name, context);
+        jobs.put(job.getId(), job);
+        pruneFinished();
+        try {
+            executor.execute(() -> run(job, task));
+        } catch (RejectedExecutionException e) {
+            job.finish(JobState.FAILED, "too many jobs are queued");
+            job.reply(String.format("Job #%d %s was rejected, too many jobs are queued.", job.getId(), name));
+        }
+        return job;
+    }
+
+    public @Nullable Job get(int id) {
+        return jobs.get(id);
+    }
+
+    public List<Job> list() {
+        List<Job> list = new ArrayList<>(jobs.values());
+        list.sort(Comparator.comparingInt(Job::getId));
+        return list;
+    }
+
+    /**
+     * @return false if there is no such job or it already finished
+     */
+    public boolean cancel(int id) {
+        Job job = jobs.get(id);
+        return job != null && job.cancel();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public int getQueuedCount() {
+        return executor.getQueue().size();
+    }
+
+    private void run(Job job, JobTask task) {
+        if (!job.start()) {
+            job.reply(String.format("Job #%d %s was cancelled before it started.", job.getId(), job.getName()));
+            return;
+        }
+
+        try {
+            task.run(job);
+            job.finish(JobState.SUCCEEDED, null);
+            job.reply(String.format("Job #%d %s finished in %.1fs.", job.getId(), job.getName(), job.getElapsedMillis() / 1000.0D));
+        } catch (CancellationException e) {
+            job.finish(JobState.CANCELLED, null);
+            job.reply(String.format("Job #%d %s was cancelled after %.1fs.", job.getId(), job.getName(), job.getElapsedMillis() / 1000.0D));
+        } catch (Exception e) {
+            LOGGER.atSevere().withCause(e).log("Job #%d %s failed", job.getId(), job.getName());
+            job.finish(JobState.FAILED, String.valueOf(e.getMessage()));
+            job.reply(String.format("Job #%d %s failed: %s", job.getId(), job.getName(), e.getMessage()));
+        }
+    }
+
+    private void pruneFinished() {
+        List<Job> finished = new ArrayList<>();
+        for (Job job : jobs.values()) {
+            if (job.getState().isDone()) {
+                finished.add(job);
+            }
+        }
+        if (finished.size() <= maxFinished) {
+            return;
+        }
+        finished.sort(Comparator.comparingInt(Job::getId));
+        for (int i = 0; i < finished.size() - maxFinished; i++) {
+            jobs.remove(finished.get(i).getId());
+        }
+    }
+}
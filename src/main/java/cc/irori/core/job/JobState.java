@@ -0,0 +1,18 @@
+package cc.irori.core.job;
+
+public enum JobState {
+    /** Waiting for a free executor slot */
+    QUEUED,
+    /** Running on the job executor */
+    RUNNING,
+    /** Finished normally */
+    SUCCEEDED,
+    /** Threw an exception or was rejected */
+    FAILED,
+    /** Stopped at a cancellation point, or cancelled before it started */
+    CANCELLED;
+
+    public boolean isDone() {
+        return this == SUCCEEDED || this == FAILED || this == CANCELLED;
+    }
+}
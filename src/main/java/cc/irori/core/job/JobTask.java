@@ -0,0 +1,10 @@
+package cc.irori.core.job;
+
+/**
+ * Body of a {@link Job}. Long loops should call {@link Job#checkCancelled()} between units of work.
+ */
+@FunctionalInterface
+public interface JobTask {
+
+    void run(Job job) throws Exception;
+}
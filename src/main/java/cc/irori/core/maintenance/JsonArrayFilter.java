@@ -0,0 +1,141 @@
+package cc.irori.core.maintenance;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Predicate;
+
+/**
+ * Rewrites a JSON file by streaming it token by token, dropping the elements of one top-level
+ * array that do not match a predicate. Only a single array element is held in memory at a time.
+ */
+public final class JsonArrayFilter {
+
+    private static final Gson GSON = new GsonBuilder()
+            .disableHtmlEscaping()
+            .serializeNulls()
+            .create();
+
+    // Private constructor to prevent instantiation
+    private JsonArrayFilter() {
+    }
+
+    public static Result filter(Path file, String arrayKey, Predicate<JsonElement> keep) throws IOException {
+        long start = System.nanoTime();
+        long bytes = Files.size(file);
+        int[] counts = new int[2];
+
+        Path temp = TempFiles.createFor(file);
+        try {
+            try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+                 FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                JsonReader reader = new JsonReader(in);
+                Writer out = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), 1 << 16);
+                JsonWriter writer = new JsonWriter(out);
+
+                reader.beginObject();
+                writer.beginObject();
+                while (reader.hasNext()) {
+                    String name = reader.nextName();
+                    writer.name(name);
+                    if (name.equals(arrayKey) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                        filterArray(reader, writer, keep, counts);
+                    } else {
+                        copyValue(reader, writer);
+                    }
+                }
+                reader.endObject();
+                writer.endObject();
+
+                writer.flush();
+                channel.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        return new Result(counts[0], counts[1], bytes, System.nanoTime() - start);
+    }
+
+    private static void filterArray(JsonReader reader, JsonWriter writer, Predicate<JsonElement> keep, int[] counts) throws IOException {
+        reader.beginArray();
+        writer.beginArray();
+        while (reader.hasNext()) {
+            JsonElement element = JsonParser.parseReader(reader);
+            if (keep.test(element)) {
+                GSON.toJson(element, writer);
+                counts[0]++;
+            } else {
+                counts[1]++;
+            }
+        }
+        reader.endArray();
+        writer.endArray();
+    }
+
+    static void copyValue(JsonReader reader, JsonWriter writer) throws IOException {
+        switch (reader.peek()) {
+            case BEGIN_OBJECT -> {
+                reader.beginObject();
+                writer.beginObject();
+                while (reader.hasNext()) {
+                    writer.name(reader.nextName());
+                    copyValue(reader, writer);
+                }
+                reader.endObject();
+                writer.endObject();
+            }
+            case BEGIN_ARRAY -> {
+                reader.beginArray();
+                writer.beginArray();
+                while (reader.hasNext()) {
+                    copyValue(reader, writer);
+                }
+                reader.endArray();
+                writer.endArray();
+            }
+            case STRING -> writer.value(reader.nextString());
+            // Keep the original number literal instead of round-tripping through double
+            case NUMBER -> writer.jsonValue(reader.nextString());
+            case BOOLEAN -> writer.value(reader.nextBoolean());
+            case NULL -> {
+                reader.nextNull();
+                writer.nullValue();
+            }
+            default -> throw new IOException("Unexpected token " + reader.peek() + " at " + reader.getPath());
+        }
+    }
+
+    public record Result(int kept, int removed, long bytes, long nanos) {
+
+        public double seconds() {
+            return nanos / 1_000_000_000.0D;
+        }
+
+        public double entriesPerSecond() {
+            return (kept + removed) / Math.max(seconds(), 1.0E-9D);
+        }
+
+        public double megabytesPerSecond() {
+            return bytes / (1024.0D * 1024.0D) / Math.max(seconds(), 1.0E-9D);
+        }
+    }
+}
@@ -0,0 +1,482 @@
+package cc.irori.core.maintenance;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Byte ranges of the elements of one top-level array in a JSON file, each with the string value of one
+ * of its keys. Built by a streaming scan over the raw bytes that never materializes an element, so
+ * elements can later be cut out by copying the bytes around them instead of re-serializing the file.
+ * <p>
+ * Only valid for the file contents it was scanned from. The file's modification time, size and identity
+ * are recorded before the scan, and {@link #remove} refuses to splice a file that no longer matches them.
+ */
+final class JsonArrayLayout {
+
+    // Layout of a missing file
+    static final JsonArrayLayout EMPTY = new JsonArrayLayout(null, -1, new long[0], new long[0], new String[0], 0);
+
+    private final Stamp stamp;
+    // Offset just after the array's '[', or -1 if the file has no such array
+    private final long contentStart;
+    private final long[] starts;
+    private final long[] ends;
+    private final String[] keys;
+    private final int count;
+
+    private JsonArrayLayout(Stamp stamp, long contentStart, long[] starts, long[] ends, String[] keys, int count) {
+        this.stamp = stamp;
+        this.contentStart = contentStart;
+        this.starts = starts;
+        this.ends = ends;
+        this.keys = keys;
+        this.count = count;
+    }
+
+    /**
+     * @param elementKey key whose string value is recorded for each element, elements without it get null
+     */
+    static JsonArrayLayout scan(Path file, String arrayKey, String elementKey) throws IOException {
+        // Stamped first, so a write during the scan makes the layout stale rather than silently wrong
+        Stamp stamp = Stamp.read(file);
+        if (stamp == null) {
+            return EMPTY;
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            Scanner scanner = new Scanner(in);
+            Builder builder = new Builder();
+            long contentStart = -1;
+
+            scanner.skipWhitespace();
+            scanner.expect('{');
+            if (scanner.skipWhitespace() == '}') {
+                return builder.build(stamp, -1);
+            }
+            while (true) {
+                scanner.skipWhitespace();
+                String name = scanner.readString();
+                scanner.skipWhitespace();
+                scanner.expect(':');
+                if (contentStart < 0 && name.equals(arrayKey) && scanner.skipWhitespace() == '[') {
+                    scanner.read();
+                    contentStart = scanner.position;
+                    scanArray(scanner, elementKey, builder);
+                } else {
+                    scanner.skipValue();
+                }
+                scanner.skipWhitespace();
+                int c = scanner.read();
+                if (c == '}') {
+                    break;
+                }
+                if (c != ',') {
+                    throw scanner.unexpected(c);
+                }
+            }
+            return builder.build(stamp, contentStart);
+        }
+    }
+
+    /**
+     * @return whether the file is still the one this layout was scanned from, or still missing
+     */
+    boolean isCurrent(Path file) throws IOException {
+        return Objects.equals(stamp, Stamp.read(file));
+    }
+
+    int size() {
+        return count;
+    }
+
+    String key(int element) {
+        return keys[element];
+    }
+
+    Map<String, Integer> countByKey() {
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            if (keys[i] != null) {
+                counts.merge(keys[i], 1, Integer::sum);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Atomically rewrites the file without the removed elements. Every other byte, including the
+     * formatting between the remaining elements, is copied as is.
+     *
+     * @return the layout of the rewritten file
+     * @throws StaleLayoutException if the file changed since it was scanned, it is then left untouched
+     */
+    JsonArrayLayout remove(Path file, BitSet removed) throws IOException {
+        if (removed.isEmpty() || contentStart < 0) {
+            return this;
+        }
+        Builder rebuilt = new Builder();
+        Path temp = TempFiles.createFor(file);
+        try {
+            try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ);
+                 FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                checkCurrent(file, in);
+                Copier copier = new Copier(in, out);
+                copier.copy(0, contentStart);
+                boolean first = true;
+                for (int i = 0; i < count; i++) {
+                    if (removed.get(i)) {
+                        continue;
+                    }
+                    // The first remaining element takes the original leading whitespace, the others keep their comma
+                    if (first) {
+                        copier.copy(contentStart, starts[0]);
+                    } else {
+                        copier.copy(ends[i - 1], starts[i]);
+                    }
+                    rebuilt.add(copier.written, copier.written + (ends[i] - starts[i]), keys[i]);
+                    copier.copy(starts[i], ends[i]);
+                    first = false;
+                }
+                copier.copy(count > 0 ? ends[count - 1] : contentStart, in.size());
+                copier.flush();
+                // A writer that got in during the copy has to win, the ranges no longer match its contents
+                checkCurrent(file, in);
+                out.force(true);
+            }
+            // The move keeps the temp file's identity and time, so the stamp stays valid for the new file
+            Stamp rewritten = Stamp.read(temp);
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return rebuilt.build(rewritten, contentStart);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    private void checkCurrent(Path file, FileChannel in) throws IOException {
+        if (in.size() != stamp.size() || !stamp.equals(Stamp.read(file))) {
+            throw new StaleLayoutException(file);
+        }
+    }
+
+    /**
+     * Thrown instead of splicing a file that changed since its layout was scanned.
+     */
+    static final class StaleLayoutException extends IOException {
+
+        private StaleLayoutException(Path file) {
+            super(file + " changed since it was scanned");
+        }
+    }
+
+    private record Stamp(FileTime modified, long size, Object fileKey) {
+
+        /**
+         * @return null if the file does not exist
+         */
+        private static Stamp read(Path file) throws IOException {
+            BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            } catch (NoSuchFileException e) {
+                return null;
+            }
+            return new Stamp(attributes.lastModifiedTime(), attributes.size(), attributes.fileKey());
+        }
+    }
+
+    /**
+     * Copies byte ranges from one channel to another, merging adjacent ranges so a run of kept
+     * elements is a single transfer.
+     */
+    private static final class Copier {
+
+        private final FileChannel in;
+        private final FileChannel out;
+        private long pendingFrom;
+        private long pendingTo;
+        // Bytes written once the pending range is flushed
+        private long written;
+
+        private Copier(FileChannel in, FileChannel out) {
+            this.in = in;
+            this.out = out;
+        }
+
+        private void copy(long from, long to) throws IOException {
+            if (from != pendingTo) {
+                flush();
+                pendingFrom = from;
+            }
+            pendingTo = to;
+            written += to - from;
+        }
+
+        private void flush() throws IOException {
+            long position = pendingFrom;
+            while (position < pendingTo) {
+                long transferred = in.transferTo(position, pendingTo - position, out);
+                if (transferred <= 0) {
+                    throw new IOException("File was truncated while being rewritten");
+                }
+                position += transferred;
+            }
+            pendingFrom = pendingTo;
+        }
+    }
+
+    private static void scanArray(Scanner scanner, String elementKey, Builder builder) throws IOException {
+        if (scanner.skipWhitespace() == ']') {
+            scanner.read();
+            return;
+        }
+        while (true) {
+            long start = scanner.position;
+            String key = null;
+            if (scanner.peek() == '{') {
+                key = scanObject(scanner, elementKey);
+            } else {
+                scanner.skipValue();
+            }
+            builder.add(start, scanner.position, key);
+            scanner.skipWhitespace();
+            int c = scanner.read();
+            if (c == ']') {
+                return;
+            }
+            if (c != ',') {
+                throw scanner.unexpected(c);
+            }
+            scanner.skipWhitespace();
+        }
+    }
+
+    /**
+     * Reads an object, keeping only the string value of {@code elementKey}.
+     */
+    private static String scanObject(Scanner scanner, String elementKey) throws IOException {
+        scanner.expect('{');
+        if (scanner.skipWhitespace() == '}') {
+            scanner.read();
+            return null;
+        }
+        String value = null;
+        while (true) {
+            scanner.skipWhitespace();
+            String name = scanner.readString();
+            scanner.skipWhitespace();
+            scanner.expect(':');
+            if (name.equals(elementKey) && scanner.skipWhitespace() == '"') {
+                value = scanner.readString();
+            } else {
+                scanner.skipValue();
+            }
+            scanner.skipWhitespace();
+            int c = scanner.read();
+            if (c == '}') {
+                return value;
+            }
+            if (c != ',') {
+                throw scanner.unexpected(c);
+            }
+        }
+    }
+
+    private static final class Builder {
+
+        private final Map<String, String> interned = new HashMap<>();
+        private long[] starts = new long[64];
+        private long[] ends = new long[64];
+        private String[] keys = new String[64];
+        private int count;
+
+        private void add(long start, long end, String key) {
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+                ends = Arrays.copyOf(ends, count * 2);
+                keys = Arrays.copyOf(keys, count * 2);
+            }
+            starts[count] = start;
+            ends[count] = end;
+            // Most entries share a handful of worlds
+            keys[count] = key != null ? interned.computeIfAbsent(key, k -> k) : null;
+            count++;
+        }
+
+        private JsonArrayLayout build(Stamp stamp, long contentStart) {
+            return new JsonArrayLayout(stamp, contentStart, starts, ends, keys, count);
+        }
+    }
+
+    /**
+     * Byte-level JSON reader that tracks the offset of the next byte.
+     */
+    private static final class Scanner {
+
+        private final InputStream in;
+        private final byte[] buffer = new byte[1 << 16];
+        // Undecoded UTF-8 bytes of the string being read
+        private byte[] raw = new byte[64];
+        private int rawLength;
+        private int index;
+        private int limit;
+        private long position;
+
+        private Scanner(InputStream in) {
+            this.in = in;
+        }
+
+        private int peek() throws IOException {
+            if (index == limit) {
+                int read = in.read(buffer);
+                if (read <= 0) {
+                    return -1;
+                }
+                index = 0;
+                limit = read;
+            }
+            return buffer[index] & 0xFF;
+        }
+
+        private int read() throws IOException {
+            int b = peek();
+            if (b < 0) {
+                throw new EOFException("Unexpected end of JSON at byte " + position);
+            }
+            index++;
+            position++;
+            return b;
+        }
+
+        /**
+         * @return the next byte that is not whitespace, without consuming it
+         */
+        private int skipWhitespace() throws IOException {
+            while (true) {
+                int b = peek();
+                if (b != ' ' && b != '\t' && b != '\n' && b != '\r') {
+                    return b;
+                }
+                read();
+            }
+        }
+
+        private void expect(char expected) throws IOException {
+            int b = read();
+            if (b != expected) {
+                throw unexpected(b);
+            }
+        }
+
+        private IOException unexpected(int b) {
+            return new IOException("Unexpected '" + (char) b + "' at byte " + (position - 1));
+        }
+
+        private String readString() throws IOException {
+            expect('"');
+            StringBuilder builder = null;
+            rawLength = 0;
+            while (true) {
+                int b = read();
+                if (b == '"') {
+                    break;
+                }
+                if (b != '\\') {
+                    if (rawLength == raw.length) {
+                        raw = Arrays.copyOf(raw, rawLength * 2);
+                    }
+                    raw[rawLength++] = (byte) b;
+                    continue;
+                }
+                // Raw bytes are UTF-8, decode them before appending an escaped character
+                if (builder == null) {
+                    builder = new StringBuilder();
+                }
+                builder.append(new String(raw, 0, rawLength, StandardCharsets.UTF_8));
+                rawLength = 0;
+                int escaped = read();
+                switch (escaped) {
+                    case 'b' -> builder.append('\b');
+                    case 'f' -> builder.append('\f');
+                    case 'n' -> builder.append('\n');
+                    case 'r' -> builder.append('\r');
+                    case 't' -> builder.append('\t');
+                    case 'u' -> {
+                        int code = 0;
+                        for (int i = 0; i < 4; i++) {
+                            int digit = Character.digit(read(), 16);
+                            if (digit < 0) {
+                                throw new IOException("Malformed unicode escape at byte " + (position - 1));
+                            }
+                            code = code << 4 | digit;
+                        }
+                        builder.append((char) code);
+                    }
+                    default -> builder.append((char) escaped);
+                }
+            }
+            String tail = new String(raw, 0, rawLength, StandardCharsets.UTF_8);
+            return builder != null ? builder.append(tail).toString() : tail;
+        }
+
+        private void skipString() throws IOException {
+            expect('"');
+            while (true) {
+                int b = read();
+                if (b == '\\') {
+                    read();
+                } else if (b == '"') {
+                    return;
+                }
+            }
+        }
+
+        private void skipValue() throws IOException {
+            int b = skipWhitespace();
+            if (b == '"') {
+                skipString();
+            } else if (b == '{' || b == '[') {
+                int depth = 0;
+                do {
+                    int c = peek();
+                    if (c == '"') {
+                        skipString();
+                        continue;
+                    }
+                    read();
+                    if (c == '{' || c == '[') {
+                        depth++;
+                    } else if (c == '}' || c == ']') {
+                        depth--;
+                    }
+                } while (depth > 0);
+            } else {
+                // Number, true, false or null
+                while (true) {
+                    int c = peek();
+                    if (c < 0 || c == ',' || c == '}' || c == ']' || c == ' ' || c == '\t' || c == '\n' || c == '\r') {
+                        break;
+                    }
+                    read();
+                }
+                if (b < 0) {
+                    throw new EOFException("Unexpected end of JSON at byte " + position);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package cc.irori.core.maintenance;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Migrates RPGLeveling player levels from {@code universe/players/*.json} to LevelingCore.
+ * <p>
+ * Levels are taken from the {@link PlayerIndex}, which is refreshed first so only player files changed
+ * since the last refresh are parsed. Results are applied to the {@link LevelTarget} in batches, and each
+ * applied batch is recorded in a {@link MigrationJournal} so an interrupted or cancelled run picks up where
+ * it stopped.
+ * <p>
+ * Without a target the pass only scans: it must be a dry run, and entries carry the new level but no XP.
+ */
+public final class LevelMigration {
+
+    // Old system
+    private static final double LEVEL_BASE_XP = 50.0D;
+    private static final double LEVEL_OFFSET = 0.0D;
+
+    // New system
+    private static final double LEVEL_MIGRATION_FACTOR = 1.0D;
+    private static final int STAT_POINTS_PER_LEVEL = 3;
+
+    private static final int BATCH_SIZE = 256;
+    private static final long PROGRESS_INTERVAL_NANOS = 5_000_000_000L;
+
+    private final LevelTarget target;
+    private final PlayerIndex index;
+    private final Path journalFile;
+    private final boolean dryRun;
+    private final Consumer<String> progress;
+    private final BooleanSupplier cancelled;
+
+    public LevelMigration(LevelTarget target, PlayerIndex index, Path journalFile, boolean dryRun,
+                          Consumer<String> progress, BooleanSupplier cancelled) {
+        if (target == null && !dryRun) {
+            throw new IllegalArgumentException("A migration without a target must be a dry run");
+        }
+        this.target = target;
+        this.index = index;
+        this.journalFile = journalFile;
+        this.dryRun = dryRun;
+        this.progress = progress;
+        this.cancelled = cancelled;
+    }
+
+    public Summary run() throws IOException, InterruptedException {
+        long start = System.nanoTime();
+
+        PlayerIndex.RefreshResult refresh = index.refresh();
+        progress.accept(String.format("Player index refreshed in %.2fs: %d players, %d files re-read, %d failed",
+                refresh.seconds(), refresh.indexed(), refresh.parsed(), refresh.failed()));
+        for (String failure : refresh.failures()) {
+            progress.accept("Failed to read " + failure);
+        }
+
+        try (MigrationJournal journal = new MigrationJournal(journalFile)) {
+            List<PlayerIndex.Entry> pending = new ArrayList<>();
+            int resumed = 0;
+            for (PlayerIndex.Entry entry : index.query(entry -> true)) {
+                if (journal.isCompleted(fileName(entry.uuid()))) {
+                    resumed++;
+                } else {
+                    pending.add(entry);
+                }
+            }
+
+            if (resumed > 0) {
+                progress.accept(String.format("Resuming migration, %d files already done", resumed));
+            }
+
+            int migrated = 0;
+            int skipped = 0;
+            List<Outcome> batch = new ArrayList<>(BATCH_SIZE);
+
+            long lastProgress = System.nanoTime();
+            for (int done = 0; done < pending.size(); done++) {
+                PlayerIndex.Entry entry = pending.get(done);
+                if (entry.hasLevelData()) {
+                    migrated++;
+                    batch.add(new Outcome(fileName(entry.uuid()), migrate(entry.uuid(), entry.level(), entry.experience())));
+                } else {
+                    skipped++;
+                    batch.add(new Outcome(fileName(entry.uuid()), null));
+                }
+                if (batch.size() >= BATCH_SIZE) {
+                    apply(batch, journal);
+                    if (cancelled.getAsBoolean()) {
+                        throw new CancellationException("Level migration cancelled after " + (done + 1) + " files");
+                    }
+                }
+
+                long now = System.nanoTime();
+                if (now - lastProgress >= PROGRESS_INTERVAL_NANOS) {
+                    lastProgress = now;
+                    double seconds = (now - start) / 1_000_000_000.0D;
+                    progress.accept(String.format("Migrated %d/%d files (%.0f files/s)",
+                            done + 1, pending.size(), (done + 1) / seconds));
+                }
+            }
+            apply(batch, journal);
+
+            // A clean run leaves nothing to resume; failures keep the journal so a re-run retries only those
+            int failed = refresh.failed();
+            if (!dryRun && failed == 0) {
+                journal.delete();
+            }
+
+            return new Summary(pending.size() + resumed + failed, resumed, migrated, skipped, failed, System.nanoTime() - start);
+        }
+    }
+
+    private void apply(List<Outcome> batch, MigrationJournal journal) throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        if (!dryRun) {
+            List<String> names = new ArrayList<>(batch.size());
+            for (Outcome outcome : batch) {
+                if (outcome.entry != null) {
+                    target.apply(outcome.entry);
+                }
+                names.add(outcome.name);
+            }
+            journal.append(names);
+        }
+        batch.clear();
+    }
+
+    private static String fileName(UUID uuid) {
+        return uuid + ".json";
+    }
+
+    private Entry migrate(UUID uuid, int oldLevel, double oldExperience) {
+        double xpProgress = oldExperience / xpNeededForNextLevel(oldLevel);
+
+        int newLevel = (int) Math.floor(oldLevel * LEVEL_MIGRATION_FACTOR);
+        if (target == null) {
+            return new Entry(uuid, newLevel, 0, calculateAbilityPoints(newLevel));
+        }
+
+        long currentLevelXp = target.getXpForLevel(newLevel);
+        long nextLevelXp = target.getXpForLevel(newLevel + 1);
+        long newXp = currentLevelXp + Math.round((nextLevelXp - currentLevelXp) * xpProgress);
+        return new Entry(uuid, newLevel, newXp, calculateAbilityPoints(newLevel));
+    }
+
+    private static double xpRequiredForLevel(int level) {
+        if (level <= 1) {
+            return 0.0D;
+        } else {
+            double xpRequired = LEVEL_BASE_XP * Math.pow((double)level, 2.5D) + LEVEL_OFFSET;
+            return xpRequired;
+        }
+    }
+
+    private static double xpNeededForNextLevel(int currentLevel) {
+        if (currentLevel >= 100) {
+            return 0.0D;
+        } else {
+            double xpForCurrent = xpRequiredForLevel(currentLevel);
+            double xpForNext = xpRequiredForLevel(currentLevel + 1);
+            double xpNeeded = xpForNext - xpForCurrent;
+            return xpNeeded;
+        }
+    }
+
+    private static int calculateAbilityPoints(int level) {
+        /*
+        int points = 0;
+        for (int i = 1; i <= level; i++) {
+            if (i % 5 == 0) {
+                points += 5;
+            } else {
+                points += 3;
+            }
+        }
+        return points;
+        */
+        return STAT_POINTS_PER_LEVEL * level;
+    }
+
+    public record Entry(UUID uuid, int level, long xp, int abilityPoints) {
+    }
+
+    public record Summary(int total, int resumed, int migrated, int skipped, int failed, long nanos) {
+
+        public double filesPerSecond() {
+            return (total - resumed) / Math.max(nanos / 1_000_000_000.0D, 1.0E-9D);
+        }
+    }
+
+    private record Outcome(String name, Entry entry) {
+    }
+}
@@ -0,0 +1,11 @@
+package cc.irori.core.maintenance;
+
+/**
+ * Destination of a {@link LevelMigration}, so the pass itself does not depend on a running LevelingCore.
+ */
+public interface LevelTarget {
+
+    long getXpForLevel(int level);
+
+    void apply(LevelMigration.Entry entry);
+}
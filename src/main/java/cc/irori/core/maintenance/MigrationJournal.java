@@ -0,0 +1,70 @@
+package cc.irori.core.maintenance;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Append-only list of entries that a bulk pass has already completed, one per line.
+ * An interrupted pass reloads it and skips everything that is listed.
+ */
+public final class MigrationJournal implements AutoCloseable {
+
+    private final Path file;
+    private final Set<String> completed = new HashSet<>();
+    private BufferedWriter writer;
+
+    public MigrationJournal(Path file) throws IOException {
+        this.file = file;
+        if (Files.isRegularFile(file)) {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                if (!line.isBlank()) {
+                    completed.add(line.strip());
+                }
+            }
+        }
+    }
+
+    public boolean isCompleted(String entry) {
+        return completed.contains(entry);
+    }
+
+    public int size() {
+        return completed.size();
+    }
+
+    public void append(Collection<String> entries) throws IOException {
+        if (entries.isEmpty()) {
+            return;
+        }
+        if (writer == null) {
+            writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+        for (String entry : entries) {
+            writer.write(entry);
+            writer.newLine();
+            completed.add(entry);
+        }
+        writer.flush();
+    }
+
+    public void delete() throws IOException {
+        close();
+        Files.deleteIfExists(file);
+        completed.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+}
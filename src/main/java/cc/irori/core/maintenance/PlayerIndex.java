@@ -0,0 +1,404 @@
+package cc.irori.core.maintenance;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * On-disk index of {@code universe/players/*.json}: UUID, level, experience and last world per player.
+ * <p>
+ * The index is a header followed by fixed-width records sorted by UUID, and is memory-mapped for
+ * lookups. A refresh only parses player files whose modification time or size changed since the
+ * last one, then replaces the index file atomically.
+ */
+public final class PlayerIndex {
+
+    private static final int MAGIC = 0x49525049; // "IRPI"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+
+    // msb, lsb, mtime, size, experience, level, world length, world
+    private static final int RECORD_BYTES = 80;
+    private static final int WORLD_OFFSET = 46;
+    private static final int MAX_WORLD_BYTES = RECORD_BYTES - WORLD_OFFSET;
+
+    private static final int MAX_OPEN_FILES = 64;
+    private static final int MAX_REPORTED_FAILURES = 20;
+
+    private final Path playersDir;
+    private final Path indexFile;
+    // Not synchronized: refreshes run on virtual threads and block while parsing
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile Snapshot snapshot = new Snapshot(ByteBuffer.allocate(0), 0);
+
+    public PlayerIndex(Path playersDir, Path indexFile) {
+        this.playersDir = playersDir;
+        this.indexFile = indexFile;
+    }
+
+    /**
+     * Maps the existing index file. A missing, foreign or truncated file leaves the index empty, so the
+     * next refresh parses every player file.
+     */
+    public void load() throws IOException {
+        if (!Files.isRegularFile(indexFile)) {
+            return;
+        }
+        lock.lock();
+        try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) {
+                return;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.BIG_ENDIAN);
+            int count = buffer.getInt(8);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION
+                    || count < 0 || channel.size() < HEADER_BYTES + (long) count * RECORD_BYTES) {
+                return;
+            }
+            snapshot = new Snapshot(buffer, count);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Re-reads the player files that changed since the last refresh and rewrites the index.
+     */
+    public RefreshResult refresh() throws IOException, InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            return refreshLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private RefreshResult refreshLocked() throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        Snapshot old = snapshot;
+
+        List<Entry> entries = new ArrayList<>(old.count);
+        List<Pending> changed = new ArrayList<>();
+        int known = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(playersDir, "*.json")) {
+            for (Path file : stream) {
+                UUID uuid = parseUuid(file);
+                if (uuid == null) {
+                    continue;
+                }
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                long mtime = attributes.lastModifiedTime().toMillis();
+                long size = attributes.size();
+
+                int slot = old.find(uuid);
+                if (slot >= 0) {
+                    known++;
+                    if (old.mtime(slot) == mtime && old.size(slot) == size) {
+                        entries.add(old.entry(slot));
+                        continue;
+                    }
+                }
+                changed.add(new Pending(file, uuid, mtime, size));
+            }
+        }
+
+        List<String> failures = Collections.synchronizedList(new ArrayList<>());
+        int parsed = parse(changed, entries, failures);
+
+        entries.sort(Comparator.comparingLong((Entry entry) -> entry.uuid.getMostSignificantBits())
+                .thenComparingLong(entry -> entry.uuid.getLeastSignificantBits()));
+        snapshot = write(entries);
+
+        return new RefreshResult(entries.size(), parsed, changed.size() - parsed, old.count - known,
+                List.copyOf(failures), System.nanoTime() - start);
+    }
+
+    public int size() {
+        return snapshot.count;
+    }
+
+    /**
+     * @return the player's entry, or null if the player is not indexed
+     */
+    public Entry get(UUID uuid) {
+        Snapshot current = snapshot;
+        int slot = current.find(uuid);
+        return slot >= 0 ? current.entry(slot) : null;
+    }
+
+    public void forEach(Consumer<Entry> consumer) {
+        Snapshot current = snapshot;
+        for (int i = 0; i < current.count; i++) {
+            consumer.accept(current.entry(i));
+        }
+    }
+
+    public List<Entry> query(Predicate<Entry> filter) {
+        List<Entry> result = new ArrayList<>();
+        forEach(entry -> {
+            if (filter.test(entry)) {
+                result.add(entry);
+            }
+        });
+        return result;
+    }
+
+    private static int parse(List<Pending> changed, List<Entry> entries, List<String> failures) throws InterruptedException {
+        if (changed.isEmpty()) {
+            return 0;
+        }
+        List<Entry> parsed = Collections.synchronizedList(new ArrayList<>(changed.size()));
+        Semaphore openFiles = new Semaphore(MAX_OPEN_FILES);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Pending pending : changed) {
+                openFiles.acquire();
+                executor.execute(() -> {
+                    try {
+                        parsed.add(read(pending));
+                    } catch (Exception e) {
+                        if (failures.size() < MAX_REPORTED_FAILURES) {
+                            failures.add(pending.file.getFileName() + ": " + e.getMessage());
+                        }
+                    } finally {
+                        openFiles.release();
+                    }
+                });
+            }
+        }
+        entries.addAll(parsed);
+        return parsed.size();
+    }
+
+    private static Entry read(Pending pending) throws IOException {
+        int level = -1;
+        double experience = 0.0D;
+        String world = "";
+
+        try (Reader in = openMapped(pending.file)) {
+            JsonReader reader = new JsonReader(in);
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (!reader.nextName().equals("Components") || reader.peek() != JsonToken.BEGIN_OBJECT) {
+                    reader.skipValue();
+                    continue;
+                }
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String component = reader.nextName();
+                    if (component.equals("PlayerLevelData") && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                        reader.beginObject();
+                        while (reader.hasNext()) {
+                            switch (reader.nextName()) {
+                                case "Level" -> level = reader.nextInt();
+                                case "Experience" -> experience = reader.nextDouble();
+                                default -> reader.skipValue();
+                            }
+                        }
+                        reader.endObject();
+                    } else if (component.equals("Player") && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                        world = readWorld(reader);
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            }
+            reader.endObject();
+        }
+        return new Entry(pending.uuid, pending.mtime, pending.size, level, experience, world);
+    }
+
+    private static Reader openMapped(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            CharBuffer chars = StandardCharsets.UTF_8.decode(buffer);
+            return new CharArrayReader(chars.array(), chars.arrayOffset() + chars.position(), chars.remaining());
+        }
+    }
+
+    /**
+     * Reads {@code Player.PlayerData.World}, leaving the reader after the {@code Player} object.
+     */
+    private static String readWorld(JsonReader reader) throws IOException {
+        String world = "";
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (!reader.nextName().equals("PlayerData") || reader.peek() != JsonToken.BEGIN_OBJECT) {
+                reader.skipValue();
+                continue;
+            }
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (reader.nextName().equals("World") && reader.peek() == JsonToken.STRING) {
+                    world = reader.nextString();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+        reader.endObject();
+        return world;
+    }
+
+    private Snapshot write(List<Entry> entries) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + entries.size() * RECORD_BYTES);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(entries.size()).putInt(0);
+        for (Entry entry : entries) {
+            int offset = buffer.position();
+            byte[] world = truncate(entry.lastWorld.getBytes(StandardCharsets.UTF_8));
+            buffer.putLong(entry.uuid.getMostSignificantBits())
+                    .putLong(entry.uuid.getLeastSignificantBits())
+                    .putLong(entry.mtime)
+                    .putLong(entry.size)
+                    .putDouble(entry.experience)
+                    .putInt(entry.level)
+                    .putShort((short) world.length)
+                    .put(world);
+            buffer.position(offset + RECORD_BYTES);
+        }
+        buffer.flip();
+
+        Files.createDirectories(indexFile.toAbsolutePath().getParent());
+        Path temp = TempFiles.createFor(indexFile);
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(temp, indexFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            return new Snapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), entries.size());
+        }
+    }
+
+    private static byte[] truncate(byte[] bytes) {
+        if (bytes.length <= MAX_WORLD_BYTES) {
+            return bytes;
+        }
+        // Step back to a UTF-8 boundary so the stored name still decodes
+        int length = MAX_WORLD_BYTES;
+        while (length > 0 && (bytes[length] & 0xC0) == 0x80) {
+            length--;
+        }
+        byte[] truncated = new byte[length];
+        System.arraycopy(bytes, 0, truncated, 0, length);
+        return truncated;
+    }
+
+    private static UUID parseUuid(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return UUID.fromString(name.substring(0, name.length() - ".json".length()));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param level the player's RPGLeveling level, or -1 if the file has no level data
+     */
+    public record Entry(UUID uuid, long mtime, long size, int level, double experience, String lastWorld) {
+
+        public boolean hasLevelData() {
+            return level >= 0;
+        }
+    }
+
+    /**
+     * @param parsed  player files that were new or changed and parsed successfully
+     * @param failed  player files that could not be parsed, they are retried on the next refresh
+     * @param removed indexed players whose file no longer exists
+     */
+    public record RefreshResult(int indexed, int parsed, int failed, int removed, List<String> failures, long nanos) {
+
+        public double seconds() {
+            return nanos / 1_000_000_000.0D;
+        }
+    }
+
+    private record Pending(Path file, UUID uuid, long mtime, long size) {
+    }
+
+    private record Snapshot(ByteBuffer buffer, int count) {
+
+        int find(UUID uuid) {
+            long msb = uuid.getMostSignificantBits();
+            long lsb = uuid.getLeastSignificantBits();
+            int low = 0;
+            int high = count - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int offset = HEADER_BYTES + mid * RECORD_BYTES;
+                int cmp = Long.compare(buffer.getLong(offset), msb);
+                if (cmp == 0) {
+                    cmp = Long.compare(buffer.getLong(offset + 8), lsb);
+                }
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -1;
+        }
+
+        long mtime(int slot) {
+            return buffer.getLong(HEADER_BYTES + slot * RECORD_BYTES + 16);
+        }
+
+        long size(int slot) {
+            return buffer.getLong(HEADER_BYTES + slot * RECORD_BYTES + 24);
+        }
+
+        Entry entry(int slot) {
+            int offset = HEADER_BYTES + slot * RECORD_BYTES;
+            int worldLength = buffer.getShort(offset + WORLD_OFFSET - 2);
+            byte[] world = new byte[worldLength];
+            buffer.get(offset + WORLD_OFFSET, world);
+            return new Entry(
+                    new UUID(buffer.getLong(offset), buffer.getLong(offset + 8)),
+                    buffer.getLong(offset + 16),
+                    buffer.getLong(offset + 24),
+                    buffer.getInt(offset + 40),
+                    buffer.getDouble(offset + 32),
+                    new String(world, StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package cc.irori.core.maintenance;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+/**
+ * Removes ExtendedTeleportHistory teleporters and vanilla warps that point at worlds which no longer exist.
+ */
+public final class TeleporterCleanup {
+
+    public static final String TELEPORTERS_FILE = "ExtendedTeleportHistory/Teleporters.json";
+    public static final String WARPS_FILE = "warps.json";
+
+    static final String TELEPORTERS_ARRAY = "Teleporters";
+    static final String TELEPORTERS_WORLD = "Dimension";
+    static final String WARPS_ARRAY = "Warps";
+    static final String WARPS_WORLD = "World";
+
+    // Private constructor to prevent instantiation
+    private TeleporterCleanup() {
+    }
+
+    public static JsonArrayFilter.Result cleanTeleporters(Path universeDir, Set<String> liveWorlds) throws IOException {
+        return clean(universeDir.resolve(TELEPORTERS_FILE), TELEPORTERS_ARRAY, TELEPORTERS_WORLD, liveWorlds);
+    }
+
+    public static JsonArrayFilter.Result cleanWarps(Path universeDir, Set<String> liveWorlds) throws IOException {
+        return clean(universeDir.resolve(WARPS_FILE), WARPS_ARRAY, WARPS_WORLD, liveWorlds);
+    }
+
+    private static JsonArrayFilter.Result clean(Path file, String arrayKey, String worldKey, Set<String> liveWorlds) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return new JsonArrayFilter.Result(0, 0, 0, 0);
+        }
+        return JsonArrayFilter.filter(file, arrayKey, element -> isLive(element, worldKey, liveWorlds));
+    }
+
+    private static boolean isLive(JsonElement element, String worldKey, Set<String> liveWorlds) {
+        String world = getWorld(element, worldKey);
+        // Entries without a world are left untouched
+        return world == null || liveWorlds.contains(world);
+    }
+
+    /**
+     * @return the world an entry points at, or null if it has none
+     */
+    private static String getWorld(JsonElement element, String worldKey) {
+        if (!element.isJsonObject()) {
+            return null;
+        }
+        JsonObject object = element.getAsJsonObject();
+        JsonElement world = object.get(worldKey);
+        if (world == null || !world.isJsonPrimitive()) {
+            return null;
+        }
+        return world.getAsString();
+    }
+}
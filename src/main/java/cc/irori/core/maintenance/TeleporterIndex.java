@@ -0,0 +1,150 @@
+package cc.irori.core.maintenance;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * ExtendedTeleportHistory teleporters and vanilla warps grouped by the world they point at, kept as the
+ * byte range of each entry in its file. Removing a world cuts its entries out of the files that reference
+ * it by copying the bytes around them, without parsing or re-serializing the other entries.
+ * <p>
+ * The index is built with a streaming scan that never materializes an entry. A file that changed since it
+ * was scanned is scanned again before it is pruned, also when it changes while being pruned. Not
+ * thread-safe, callers confine it to one thread.
+ */
+public final class TeleporterIndex {
+
+    // A file rewritten this many times in a row while being pruned is left for the next prune
+    private static final int MAX_PRUNE_ATTEMPTS = 3;
+
+    private final Source teleporters;
+    private final Source warps;
+
+    public TeleporterIndex(Path universeDir) {
+        this.teleporters = new Source("ExtendedTeleportHistory teleporters", universeDir.resolve(TeleporterCleanup.TELEPORTERS_FILE),
+                TeleporterCleanup.TELEPORTERS_ARRAY, TeleporterCleanup.TELEPORTERS_WORLD);
+        this.warps = new Source("vanilla warps", universeDir.resolve(TeleporterCleanup.WARPS_FILE),
+                TeleporterCleanup.WARPS_ARRAY, TeleporterCleanup.WARPS_WORLD);
+    }
+
+    public void build() throws IOException {
+        teleporters.scan();
+        warps.scan();
+    }
+
+    public int getTeleporterCount(String world) {
+        return teleporters.counts.getOrDefault(world, 0);
+    }
+
+    public int getWarpCount(String world) {
+        return warps.counts.getOrDefault(world, 0);
+    }
+
+    public int getWorldCount() {
+        Set<String> worlds = new HashSet<>(teleporters.counts.keySet());
+        worlds.addAll(warps.counts.keySet());
+        return worlds.size();
+    }
+
+    /**
+     * Removes the world's entries from the files that reference it.
+     */
+    public Pruned prune(String world) throws IOException {
+        long start = System.nanoTime();
+        int removedTeleporters = teleporters.prune(world);
+        int removedWarps = warps.prune(world);
+        return new Pruned(world, removedTeleporters, removedWarps, System.nanoTime() - start);
+    }
+
+    /**
+     * Counts both files again and reports every world whose indexed count differs from the files.
+     * The index adopts the new counts.
+     */
+    public List<Drift> checkDrift() throws IOException {
+        List<Drift> drift = new ArrayList<>();
+        teleporters.checkDrift(drift);
+        warps.checkDrift(drift);
+        return drift;
+    }
+
+    public record Pruned(String world, int teleporters, int warps, long nanos) {
+
+        public double seconds() {
+            return nanos / 1_000_000_000.0D;
+        }
+    }
+
+    public record Drift(String source, String world, int indexed, int actual) {
+    }
+
+    private static final class Source {
+
+        private final String name;
+        private final Path file;
+        private final String arrayKey;
+        private final String worldKey;
+
+        private JsonArrayLayout layout = JsonArrayLayout.EMPTY;
+        private Map<String, Integer> counts = new HashMap<>();
+
+        private Source(String name, Path file, String arrayKey, String worldKey) {
+            this.name = name;
+            this.file = file;
+            this.arrayKey = arrayKey;
+            this.worldKey = worldKey;
+        }
+
+        private int prune(String world) throws IOException {
+            for (int attempt = 1; ; attempt++) {
+                if (!layout.isCurrent(file)) {
+                    scan();
+                }
+                if (counts.getOrDefault(world, 0) == 0) {
+                    return 0;
+                }
+                BitSet removed = new BitSet(layout.size());
+                for (int i = 0; i < layout.size(); i++) {
+                    if (world.equals(layout.key(i))) {
+                        removed.set(i);
+                    }
+                }
+                try {
+                    layout = layout.remove(file, removed);
+                } catch (JsonArrayLayout.StaleLayoutException e) {
+                    if (attempt == MAX_PRUNE_ATTEMPTS) {
+                        throw e;
+                    }
+                    continue;
+                }
+                counts.remove(world);
+                return removed.cardinality();
+            }
+        }
+
+        private void checkDrift(List<Drift> drift) throws IOException {
+            Map<String, Integer> indexed = counts;
+            scan();
+            Set<String> worlds = new HashSet<>(indexed.keySet());
+            worlds.addAll(counts.keySet());
+            for (String world : worlds) {
+                int before = indexed.getOrDefault(world, 0);
+                int after = counts.getOrDefault(world, 0);
+                if (before != after) {
+                    drift.add(new Drift(name, world, before, after));
+                }
+            }
+        }
+
+        private void scan() throws IOException {
+            layout = JsonArrayLayout.scan(file, arrayKey, worldKey);
+            counts = layout.countByKey();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package cc.irori.core.maintenance;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+
+/**
+ * Temporary files that are atomically moved over the file they replace.
+ */
+final class TempFiles {
+
+    // Private constructor to prevent instantiation
+    private TempFiles() {
+    }
+
+    /**
+     * Creates an empty temporary file next to {@code target}. If the target exists, its POSIX
+     * permissions and owner are copied, so the move does not leave it with the 0600 mode
+     * {@link Files#createTempFile} uses.
+     */
+    static Path createFor(Path target) throws IOException {
+        Path temp = Files.createTempFile(target.toAbsolutePath().getParent(), target.getFileName().toString() + ".", ".tmp");
+        try {
+            copyAttributes(target, temp);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        return temp;
+    }
+
+    private static void copyAttributes(Path source, Path target) throws IOException {
+        PosixFileAttributeView sourceView = Files.getFileAttributeView(source, PosixFileAttributeView.class);
+        // Not a POSIX file system
+        if (sourceView == null || !Files.exists(source, LinkOption.NOFOLLOW_LINKS)) {
+            return;
+        }
+        PosixFileAttributes attributes = sourceView.readAttributes();
+        PosixFileAttributeView targetView = Files.getFileAttributeView(target, PosixFileAttributeView.class);
+        try {
+            targetView.setOwner(attributes.owner());
+            targetView.setGroup(attributes.group());
+        } catch (IOException e) {
+            // Only a privileged user can give a file away, the file is then left owned by us
+        }
+        // After the owner, since changing it may clear mode bits
+        targetView.setPermissions(attributes.permissions());
+    }
+}
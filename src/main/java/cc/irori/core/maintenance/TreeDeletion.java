@@ -0,0 +1,197 @@
+package cc.irori.core.maintenance;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Deletes a directory tree with a parallel walk, each subdirectory being a separate fork-join task.
+ * File deletions are rate limited so a large world folder does not saturate the disk the live worlds
+ * are saved to.
+ * <p>
+ * Symbolic links are deleted, never followed. A file that cannot be deleted is counted as a failure and
+ * its parent directories are left in place. Fork-join workers do not react to interrupts, so a deletion
+ * is stopped through its cancellation check, which every task polls before each file.
+ */
+public final class TreeDeletion {
+
+    private final int parallelism;
+    private final int filesPerSecond;
+    private final BooleanSupplier cancelled;
+
+    // Token bucket shared by all workers of a deletion
+    private final Object bucketLock = new Object();
+    private double tokens;
+    private long lastRefillNanos;
+
+    private final AtomicLong files = new AtomicLong();
+    private final AtomicLong directories = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile IOException firstFailure;
+
+    private TreeDeletion(int parallelism, int filesPerSecond, BooleanSupplier cancelled) {
+        this.parallelism = parallelism;
+        this.filesPerSecond = filesPerSecond;
+        this.cancelled = cancelled;
+    }
+
+    /**
+     * @param parallelism    directories walked at once
+     * @param filesPerSecond files deleted per second across all workers
+     * @param cancelled      stops the deletion once true, leaving the rest of the tree in place
+     */
+    public static Result delete(Path root, int parallelism, int filesPerSecond, BooleanSupplier cancelled) throws InterruptedException {
+        return new TreeDeletion(parallelism, filesPerSecond, cancelled).run(root);
+    }
+
+    private Result run(Path root) throws InterruptedException {
+        long start = System.nanoTime();
+        tokens = filesPerSecond;
+        lastRefillNanos = start;
+        if (Files.isDirectory(root, LinkOption.NOFOLLOW_LINKS)) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                pool.invoke(new DeleteDirectory(root));
+            } finally {
+                pool.shutdownNow();
+                pool.awaitTermination(10, TimeUnit.SECONDS);
+            }
+        }
+        return new Result(files.get(), directories.get(), bytes.get(), failed.get(), firstFailure, isCancelled(), System.nanoTime() - start);
+    }
+
+    private boolean isCancelled() {
+        return cancelled.getAsBoolean() || Thread.currentThread().isInterrupted();
+    }
+
+    private boolean deleteFile(Path file, long size) {
+        if (!acquire()) {
+            return false;
+        }
+        try {
+            Files.delete(file);
+            files.incrementAndGet();
+            bytes.addAndGet(size);
+            return true;
+        } catch (IOException e) {
+            fail(e);
+            return false;
+        }
+    }
+
+    private void fail(IOException e) {
+        failed.incrementAndGet();
+        if (firstFailure == null) {
+            firstFailure = e;
+        }
+    }
+
+    /**
+     * Takes one token, sleeping outside the lock until it is available.
+     *
+     * @return false if the deletion was cancelled or the thread interrupted meanwhile
+     */
+    private boolean acquire() {
+        if (isCancelled()) {
+            return false;
+        }
+        long waitNanos;
+        synchronized (bucketLock) {
+            long now = System.nanoTime();
+            tokens = Math.min(filesPerSecond, tokens + (now - lastRefillNanos) * filesPerSecond / 1_000_000_000.0D);
+            lastRefillNanos = now;
+            tokens -= 1;
+            waitNanos = tokens >= 0 ? 0 : (long) (-tokens / filesPerSecond * 1_000_000_000.0D);
+        }
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return !isCancelled();
+    }
+
+    public record Result(long files, long directories, long bytes, long failed, IOException firstFailure, boolean cancelled, long nanos) {
+
+        public boolean isComplete() {
+            return failed == 0 && !cancelled;
+        }
+
+        public double seconds() {
+            return nanos / 1_000_000_000.0D;
+        }
+
+        public double megabytes() {
+            return bytes / (1024.0D * 1024.0D);
+        }
+    }
+
+    private final class DeleteDirectory extends RecursiveTask<Boolean> {
+
+        private final Path dir;
+
+        private DeleteDirectory(Path dir) {
+            this.dir = dir;
+        }
+
+        /**
+         * @return whether the directory and everything in it was deleted
+         */
+        @Override
+        protected Boolean compute() {
+            if (isCancelled()) {
+                return false;
+            }
+            List<DeleteDirectory> children = new ArrayList<>();
+            boolean clean = true;
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                for (Path entry : stream) {
+                    if (isCancelled()) {
+                        clean = false;
+                        break;
+                    }
+                    BasicFileAttributes attributes = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    if (attributes.isDirectory()) {
+                        DeleteDirectory child = new DeleteDirectory(entry);
+                        child.fork();
+                        children.add(child);
+                    } else {
+                        clean &= deleteFile(entry, attributes.size());
+                    }
+                }
+            } catch (IOException e) {
+                fail(e);
+                clean = false;
+            }
+
+            for (DeleteDirectory child : children) {
+                clean &= child.join();
+            }
+            if (!clean) {
+                return false;
+            }
+            try {
+                Files.delete(dir);
+                directories.incrementAndGet();
+                return true;
+            } catch (IOException e) {
+                fail(e);
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package cc.irori.core.message;
+
+import cc.irori.shodo.ShodoAPI;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+
+import javax.annotation.Nullable;
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A player-facing message declared once with an English and a Japanese variant, either of which may
+ * be absent. {@code {0}}, {@code {1}}, ... are placeholders.
+ * <p>
+ * Templates are compiled when declared: every static English segment becomes a {@link Message} that is
+ * shared by all sends, and a template without placeholders is a single shared message. Filling only
+ * creates the placeholder values.
+ */
+public final class MessageTemplate {
+
+    private final @Nullable Message staticEnglish;
+    private final Message[] englishParts;
+    private final Segment[] placeholders;
+    private final int[] placeholderSlots;
+
+    private final String[] japaneseLiterals;
+    private final int[] japaneseSlots;
+    private final int japaneseLength;
+    private final @Nullable Color japaneseColor;
+    private final boolean hasJapanese;
+
+    private MessageTemplate(List<Segment> english, @Nullable String japanese, @Nullable Color japaneseColor) {
+        List<Message> parts = new ArrayList<>();
+        List<Segment> holes = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        for (Segment segment : english) {
+            Split split = Split.of(segment.text);
+            for (int i = 0; i < split.literals.length; i++) {
+                if (!split.literals[i].isEmpty()) {
+                    parts.add(segment.style(split.literals[i]));
+                }
+                if (i < split.slots.length) {
+                    holes.add(segment.withIndex(split.slots[i]));
+                    slots.add(parts.size());
+                    parts.add(null);
+                }
+            }
+        }
+        this.englishParts = parts.toArray(new Message[0]);
+        this.placeholders = holes.toArray(new Segment[0]);
+        this.placeholderSlots = slots.stream().mapToInt(Integer::intValue).toArray();
+
+        if (placeholders.length == 0 && englishParts.length > 0) {
+            this.staticEnglish = englishParts.length == 1 ? englishParts[0] : Message.join(englishParts);
+        } else {
+            this.staticEnglish = null;
+        }
+
+        this.hasJapanese = japanese != null;
+        Split split = Split.of(japanese != null ? japanese : "");
+        this.japaneseLiterals = split.literals;
+        this.japaneseSlots = split.slots;
+        int length = 0;
+        for (String literal : split.literals) {
+            length += literal.length();
+        }
+        this.japaneseLength = length;
+        this.japaneseColor = japaneseColor;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public void send(PlayerRef player) {
+        fill().send(player);
+    }
+
+    public void send(PlayerRef player, String arg0) {
+        fill(arg0).send(player);
+    }
+
+    public void send(PlayerRef player, String arg0, String arg1) {
+        fill(arg0, arg1).send(player);
+    }
+
+    /**
+     * Fills the placeholders once, for sending the same text to many players.
+     */
+    public Filled fill(String... args) {
+        return new Filled(english(args), japanese(args), japaneseColor);
+    }
+
+    private @Nullable Message english(String[] args) {
+        if (staticEnglish != null || englishParts.length == 0) {
+            return staticEnglish;
+        }
+        Message[] parts = englishParts.clone();
+        for (int i = 0; i < placeholders.length; i++) {
+            Segment placeholder = placeholders[i];
+            parts[placeholderSlots[i]] = placeholder.style(args[placeholder.index]);
+        }
+        return Message.join(parts);
+    }
+
+    private @Nullable String japanese(String[] args) {
+        if (!hasJapanese) {
+            return null;
+        }
+        if (japaneseSlots.length == 0) {
+            return japaneseLiterals[0];
+        }
+        int length = japaneseLength;
+        for (int slot : japaneseSlots) {
+            length += args[slot].length();
+        }
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < japaneseLiterals.length; i++) {
+            builder.append(japaneseLiterals[i]);
+            if (i < japaneseSlots.length) {
+                builder.append(args[japaneseSlots[i]]);
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * A template with its placeholders filled in, sent to both chat channels with one call.
+     */
+    public record Filled(@Nullable Message english, @Nullable String japanese, @Nullable Color japaneseColor) {
+
+        /**
+         * @return how many messages one {@link #send} delivers
+         */
+        public int sendCount() {
+            return (english != null ? 1 : 0) + (japanese != null ? 1 : 0);
+        }
+
+        public void send(PlayerRef player) {
+            if (english != null) {
+                player.sendMessage(english);
+            }
+            if (japanese != null) {
+                if (japaneseColor != null) {
+                    ShodoAPI.getInstance().sendMessage(player, japanese, japaneseColor);
+                } else {
+                    ShodoAPI.getInstance().sendMessage(player, japanese);
+                }
+            }
+        }
+    }
+
+    public static final class Builder {
+
+        private final List<Segment> english = new ArrayList<>();
+        private String japanese;
+        private Color japaneseColor;
+
+        private Builder() {
+        }
+
+        public Builder english(String text) {
+            english.add(new Segment(text, null, false, null, -1));
+            return this;
+        }
+
+        public Builder english(String text, Color color) {
+            english.add(new Segment(text, color, false, null, -1));
+            return this;
+        }
+
+        public Builder englishBold(String text, Color color) {
+            english.add(new Segment(text, color, true, null, -1));
+            return this;
+        }
+
+        public Builder englishLink(String text, Color color, String url) {
+            english.add(new Segment(text, color, false, url, -1));
+            return this;
+        }
+
+        public Builder japanese(String text) {
+            return japanese(text, null);
+        }
+
+        public Builder japanese(String text, @Nullable Color color) {
+            this.japanese = text;
+            this.japaneseColor = color;
+            return this;
+        }
+
+        public MessageTemplate build() {
+            return new MessageTemplate(List.copyOf(english), japanese, japaneseColor);
+        }
+    }
+
+    private record Segment(String text, @Nullable Color color, boolean bold, @Nullable String link, int index) {
+
+        Segment withIndex(int index) {
+            return new Segment(text, color, bold, link, index);
+        }
+
+        Message style(String value) {
+            Message message = Message.raw(value);
+            if (color != null) {
+                message = message.color(color);
+            }
+            if (bold) {
+                message = message.bold(true);
+            }
+            if (link != null) {
+                message = message.link(link);
+            }
+            return message;
+        }
+    }
+
+    /**
+     * A text split around its placeholders: {@code literals[i]} is followed by placeholder {@code slots[i]}.
+     */
+    private record Split(String[] literals, int[] slots) {
+
+        static Split of(String text) {
+            List<String> literals = new ArrayList<>();
+            List<Integer> slots = new ArrayList<>();
+            int start = 0;
+            int search = 0;
+            int open;
+            while ((open = text.indexOf('{', search)) >= 0) {
+                int close = text.indexOf('}', open);
+                if (close < 0) {
+                    break;
+                }
+                if (!isIndex(text, open + 1, close)) {
+                    // A literal brace, keep looking after it
+                    search = open + 1;
+                    continue;
+                }
+                literals.add(text.substring(start, open));
+                slots.add(Integer.parseInt(text, open + 1, close, 10));
+                start = close + 1;
+                search = start;
+            }
+            literals.add(text.substring(start));
+            return new Split(literals.toArray(new String[0]), slots.stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        private static boolean isIndex(String text, int from, int to) {
+            if (from == to) {
+                return false;
+            }
+            for (int i = from; i < to; i++) {
+                if (!Character.isDigit(text.charAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
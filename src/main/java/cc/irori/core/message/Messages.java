@@ -0,0 +1,83 @@
+package cc.irori.core.message;
+
+import cc.irori.core.Colors;
+
+/**
+ * Every bilingual message the plugin sends to players. Templates are compiled when this class loads.
+ */
+public final class Messages {
+
+    private static final String DISCORD_INVITE = "ajFSfjbpcX";
+
+    public static final MessageTemplate CHAT_NOTICE = MessageTemplate.builder()
+            .japanese("プレイヤーチャットは、ここに日本語で表示されます。", Colors.GREEN)
+            .build();
+
+    public static final MessageTemplate WELCOME = MessageTemplate.builder()
+            .english("> Welcome to ", Colors.GOLD_LIGHT)
+            .englishBold("IRORI Server", Colors.MUSTARD)
+            .english("!", Colors.GOLD_LIGHT)
+            .japanese("いろり鯖へようこそ！", Colors.GREEN)
+            .build();
+
+    public static final MessageTemplate DISCORD = MessageTemplate.builder()
+            .english("> Please join our ", Colors.SKY_LIGHT)
+            .englishBold("DISCORD", Colors.BLUE_LIGHT)
+            .english(": ", Colors.GOLD_LIGHT)
+            .englishLink("discord.gg/" + DISCORD_INVITE, Colors.TEAL, "https://discord.gg/" + DISCORD_INVITE)
+            .build();
+
+    public static final MessageTemplate SHIGEN_RESET_WARNING = MessageTemplate.builder()
+            .japanese("このワールドは定期的にリセットされるので、拠点の製作などは控えてください。", Colors.SCARLET_LIGHT)
+            .build();
+
+    public static final MessageTemplate SHIGEN_ENTERED = MessageTemplate.builder()
+            .japanese("[!] 資源ワールドに入りました [!]", Colors.SCARLET_LIGHT)
+            .build();
+
+    public static final MessageTemplate SHIGEN_RETIRED = MessageTemplate.builder()
+            .english("This resource world is being retired, moving you to the server spawn.", Colors.SCARLET_LIGHT)
+            .japanese("この資源ワールドは削除されます。サーバーのスポーン地点に移動します。", Colors.SCARLET_LIGHT)
+            .build();
+
+    public static final MessageTemplate SPAWN_TELEPORTED = MessageTemplate.builder()
+            .english("Teleported to the server spawn.")
+            .japanese("サーバーのスポーン地点に移動しました。")
+            .build();
+
+    /** {0}: position in the queue */
+    public static final MessageTemplate TELEPORT_QUEUED = MessageTemplate.builder()
+            .english("Many players are teleporting, you are number {0} in the queue.", Colors.YELLOW)
+            .japanese("テレポートが混み合っています。順番待ち: {0}番目", Colors.YELLOW)
+            .build();
+
+    /** {0}: position in the queue */
+    public static final MessageTemplate TELEPORT_ALREADY_QUEUED = MessageTemplate.builder()
+            .english("You are already waiting to teleport (position {0}).", Colors.YELLOW)
+            .japanese("すでにテレポート待ちです ({0}番目)", Colors.YELLOW)
+            .build();
+
+    /** {0}: time left in English, {1}: time left in Japanese */
+    public static final MessageTemplate RESTART_COUNTDOWN = MessageTemplate.builder()
+            .englishBold("(!)", Colors.ORANGE)
+            .english(" Server RE-START in ")
+            .english("{0}", Colors.YELLOW)
+            .japanese("{1}後 にサーバーを自動再起動します", Colors.ORANGE)
+            .build();
+
+    /** {0}: names in English, {1}: names in Japanese */
+    public static final MessageTemplate PLAYERS_JOINED = MessageTemplate.builder()
+            .english("{0} joined the game", Colors.YELLOW)
+            .japanese("{1}が参加しました", Colors.YELLOW)
+            .build();
+
+    /** {0}: names in English, {1}: names in Japanese */
+    public static final MessageTemplate PLAYERS_LEFT = MessageTemplate.builder()
+            .english("{0} left the game", Colors.YELLOW)
+            .japanese("{1}が退出しました", Colors.YELLOW)
+            .build();
+
+    // Private constructor to prevent instantiation
+    private Messages() {
+    }
+}
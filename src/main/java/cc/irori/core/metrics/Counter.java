@@ -0,0 +1,34 @@
+package cc.irori.core.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public final class Counter extends Metric {
+
+    private final LongAdder value = new LongAdder();
+
+    Counter(String name, String help, String labels) {
+        super(name, help, labels);
+    }
+
+    public void increment() {
+        value.increment();
+    }
+
+    public void add(long amount) {
+        value.add(amount);
+    }
+
+    public long get() {
+        return value.sum();
+    }
+
+    @Override
+    public String getType() {
+        return "counter";
+    }
+
+    @Override
+    public void write(StringBuilder out) {
+        writeSample(out, "", "", get());
+    }
+}
@@ -0,0 +1,30 @@
+package cc.irori.core.metrics;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * A value read on demand at export time.
+ */
+public final class Gauge extends Metric {
+
+    private final DoubleSupplier supplier;
+
+    Gauge(String name, String help, String labels, DoubleSupplier supplier) {
+        super(name, help, labels);
+        this.supplier = supplier;
+    }
+
+    public double get() {
+        return supplier.getAsDouble();
+    }
+
+    @Override
+    public String getType() {
+        return "gauge";
+    }
+
+    @Override
+    public void write(StringBuilder out) {
+        writeSample(out, "", "", get());
+    }
+}
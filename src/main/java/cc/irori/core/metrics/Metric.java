@@ -0,0 +1,57 @@
+package cc.irori.core.metrics;
+
+/**
+ * A single exported time series.
+ */
+public abstract class Metric {
+
+    private final String name;
+    private final String help;
+    private final String labels;
+
+    protected Metric(String name, String help, String labels) {
+        this.name = name;
+        this.help = help;
+        this.labels = labels;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getHelp() {
+        return help;
+    }
+
+    /**
+     * @return the Prometheus label set without braces, e.g. {@code command="spawn"}, or an empty string
+     */
+    public String getLabels() {
+        return labels;
+    }
+
+    public abstract String getType();
+
+    /**
+     * Appends the sample lines of this series in Prometheus text format.
+     */
+    public abstract void write(StringBuilder out);
+
+    protected void writeSample(StringBuilder out, String suffix, String extraLabel, double value) {
+        out.append(name).append(suffix);
+        if (!labels.isEmpty() || !extraLabel.isEmpty()) {
+            out.append('{').append(labels);
+            if (!labels.isEmpty() && !extraLabel.isEmpty()) {
+                out.append(',');
+            }
+            out.append(extraLabel).append('}');
+        }
+        out.append(' ');
+        if (value == Math.rint(value) && !Double.isInfinite(value)) {
+            out.append((long) value);
+        } else {
+            out.append(value);
+        }
+        out.append('\n');
+    }
+}
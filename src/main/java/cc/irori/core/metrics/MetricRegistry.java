@@ -0,0 +1,71 @@
+package cc.irori.core.metrics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Holds every metric of the plugin. Registration is rare and may lock; recording on the returned
+ * metrics never does.
+ */
+public class MetricRegistry {
+
+    private final List<Metric> metrics = new CopyOnWriteArrayList<>();
+
+    public Counter counter(String name, String help) {
+        return counter(name, help, "");
+    }
+
+    public Counter counter(String name, String help, String labels) {
+        return register(new Counter(name, help, labels));
+    }
+
+    public Timer timer(String name, String help) {
+        return register(new Timer(name, help, ""));
+    }
+
+    /**
+     * Registers a gauge, replacing any gauge with the same name and labels.
+     */
+    public Gauge gauge(String name, String help, DoubleSupplier supplier) {
+        return gauge(name, help, "", supplier);
+    }
+
+    public Gauge gauge(String name, String help, String labels, DoubleSupplier supplier) {
+        metrics.removeIf(metric -> metric instanceof Gauge && metric.getName().equals(name) && metric.getLabels().equals(labels));
+        return register(new Gauge(name, help, labels, supplier));
+    }
+
+    public void unregisterGauges() {
+        metrics.removeIf(metric -> metric instanceof Gauge);
+    }
+
+    private <T extends Metric> T register(T metric) {
+        metrics.add(metric);
+        return metric;
+    }
+
+    /**
+     * @return every metric in Prometheus text exposition format
+     */
+    public String export() {
+        Map<String, List<Metric>> families = new LinkedHashMap<>();
+        for (Metric metric : metrics) {
+            families.computeIfAbsent(metric.getName(), name -> new ArrayList<>()).add(metric);
+        }
+
+        StringBuilder out = new StringBuilder(4096);
+        for (List<Metric> family : families.values()) {
+            Metric first = family.getFirst();
+            out.append("# HELP ").append(first.getName()).append(' ').append(first.getHelp()).append('\n');
+            out.append("# TYPE ").append(first.getName()).append(' ').append(first.getType()).append('\n');
+            for (Metric metric : family) {
+                metric.write(out);
+            }
+        }
+        return out.toString();
+    }
+}
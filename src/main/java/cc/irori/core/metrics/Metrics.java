@@ -0,0 +1,45 @@
+package cc.irori.core.metrics;
+
+/**
+ * Metrics recorded by the plugin. Fields are resolved once so hot paths only touch a
+ * {@link java.util.concurrent.atomic.LongAdder} or histogram bucket.
+ */
+public final class Metrics {
+
+    public static final MetricRegistry REGISTRY = new MetricRegistry();
+
+    public static final Counter PLAYER_JOINS = REGISTRY.counter("irori_player_joins_total", "Players that joined the server");
+    public static final Counter PLAYER_LEAVES = REGISTRY.counter("irori_player_leaves_total", "Players that left the server");
+
+    public static final Timer CONNECT_HANDLER = REGISTRY.timer("irori_connect_handler_seconds", "Time spent in the PlayerConnectEvent handler");
+
+    public static final Counter HUD_SENT = REGISTRY.counter("irori_shigen_hud_updates_total", "Shigen HUD updates by outcome", "result=\"sent\"");
+    public static final Counter HUD_CLEARED = REGISTRY.counter("irori_shigen_hud_updates_total", "Shigen HUD updates by outcome", "result=\"cleared\"");
+    public static final Counter HUD_SKIPPED = REGISTRY.counter("irori_shigen_hud_updates_total", "Shigen HUD updates by outcome", "result=\"skipped\"");
+
+    public static final Counter SPAWN_TELEPORTS = REGISTRY.counter("irori_teleports_total", "Teleports issued by commands", "command=\"spawn\"");
+    public static final Counter SHIGEN_TELEPORTS = REGISTRY.counter("irori_teleports_total", "Teleports issued by commands", "command=\"shigen\"");
+
+    public static final Timer TELEPORT_WAIT = REGISTRY.timer("irori_teleport_wait_seconds", "Time command teleports waited for admission into the target world");
+    public static final Counter TELEPORTS_QUEUED = REGISTRY.counter("irori_teleport_admissions_total", "Command teleports by admission outcome", "result=\"queued\"");
+    public static final Counter TELEPORTS_DEDUPLICATED = REGISTRY.counter("irori_teleport_admissions_total", "Command teleports by admission outcome", "result=\"deduplicated\"");
+
+    public static final Timer DEFERRED_WAIT = REGISTRY.timer("irori_deferred_wait_seconds", "Time cosmetic join work waited in the per-world backlog");
+    public static final Timer DEFERRED_DRAIN = REGISTRY.timer("irori_deferred_drain_seconds", "Time a world spent draining deferred work in one tick");
+    public static final Counter DEFERRED_DROPPED = REGISTRY.counter("irori_deferred_dropped_total", "Deferred tasks dropped because the player left or changed worlds");
+
+    public static final Counter SHIGEN_EVACUATIONS = REGISTRY.counter("irori_shigen_evacuations_total", "Players moved out of shigen worlds being retired");
+    public static final Counter SHIGEN_WORLDS_RETIRED = REGISTRY.counter("irori_shigen_worlds_retired_total", "Superseded shigen worlds unloaded and deleted");
+    public static final Counter SHIGEN_BYTES_FREED = REGISTRY.counter("irori_shigen_bytes_freed_total", "Disk space freed by deleting retired shigen worlds");
+
+    public static final Counter IDLE_CPU_SAVED_MILLIS = REGISTRY.counter("irori_idle_cpu_saved_milliseconds_total", "Estimated process CPU time saved by the low-power mode");
+
+    public static final Timer MODIFIER_PURGE = REGISTRY.timer("irori_modifier_purge_seconds", "Time spent purging RPGLeveling stat modifiers on PlayerReadyEvent");
+    public static final Counter PURGE_CHECKED = REGISTRY.counter("irori_modifier_purge_players_total", "Players seen by the RPGLeveling purge by outcome", "result=\"checked\"");
+    public static final Counter PURGE_SKIPPED = REGISTRY.counter("irori_modifier_purge_players_total", "Players seen by the RPGLeveling purge by outcome", "result=\"skipped\"");
+    public static final Counter MODIFIERS_REMOVED = REGISTRY.counter("irori_modifiers_removed_total", "RPGLeveling stat modifiers removed");
+
+    // Private constructor to prevent instantiation
+    private Metrics() {
+    }
+}
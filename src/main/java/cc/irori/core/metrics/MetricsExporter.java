@@ -0,0 +1,97 @@
+package cc.irori.core.metrics;
+
+import cc.irori.core.Logs;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves {@link MetricRegistry#export()} on a loopback HTTP endpoint and periodically writes it to a snapshot file.
+ */
+public class MetricsExporter {
+
+    private static final HytaleLogger LOGGER = Logs.logger();
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "Irori-Metrics");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final MetricRegistry registry;
+    private final int port;
+    private final Path snapshotFile;
+    private final long snapshotIntervalSeconds;
+
+    private HttpServer server;
+
+    public MetricsExporter(MetricRegistry registry, int port, Path snapshotFile, long snapshotIntervalSeconds) {
+        this.registry = registry;
+        this.port = port;
+        this.snapshotFile = snapshotFile;
+        this.snapshotIntervalSeconds = snapshotIntervalSeconds;
+    }
+
+    public void start() {
+        try {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+            server.createContext("/metrics", this::handle);
+            server.setExecutor(executor);
+            server.start();
+            LOGGER.atInfo().log("Serving metrics on http://127.0.0.1:%d/metrics", port);
+        } catch (IOException e) {
+            LOGGER.atSevere().withCause(e).log("Failed to start metrics endpoint on port %d", port);
+        }
+
+        executor.scheduleWithFixedDelay(this::writeSnapshot, snapshotIntervalSeconds, snapshotIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    public void shutdown() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+        executor.shutdown();
+        writeSnapshot();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = registry.export().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    private void writeSnapshot() {
+        try {
+            Files.createDirectories(snapshotFile.toAbsolutePath().getParent());
+            Path temp = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+            Files.writeString(temp, registry.export(), StandardCharsets.UTF_8);
+            Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (Exception e) {
+            LOGGER.atWarning().withCause(e).log("Failed to write metrics snapshot");
+        }
+    }
+}
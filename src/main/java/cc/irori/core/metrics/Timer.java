@@ -0,0 +1,47 @@
+package cc.irori.core.metrics;
+
+import cc.irori.core.diagnostics.LatencyHistogram;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records durations into a {@link LatencyHistogram}, exported as a Prometheus summary in seconds.
+ */
+public final class Timer extends Metric {
+
+    private static final double[] QUANTILES = {0.5D, 0.9D, 0.99D};
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+    private final LongAdder sumNanos = new LongAdder();
+
+    Timer(String name, String help, String labels) {
+        super(name, help, labels);
+    }
+
+    public void recordNanos(long nanos) {
+        histogram.recordNanos(nanos);
+        sumNanos.add(nanos);
+    }
+
+    public long count() {
+        return histogram.count();
+    }
+
+    public LatencyHistogram getHistogram() {
+        return histogram;
+    }
+
+    @Override
+    public String getType() {
+        return "summary";
+    }
+
+    @Override
+    public void write(StringBuilder out) {
+        for (double quantile : QUANTILES) {
+            writeSample(out, "", "quantile=\"" + quantile + "\"", histogram.percentileMicros(quantile * 100) / 1_000_000.0D);
+        }
+        writeSample(out, "_sum", "", sumNanos.sum() / 1_000_000_000.0D);
+        writeSample(out, "_count", "", histogram.count());
+    }
+}
@@ -0,0 +1,107 @@
+package cc.irori.core.session;
+
+import cc.irori.core.ShigenHud;
+
+import javax.annotation.Nullable;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Everything the plugin keeps for one online player. The state only moves forward and every
+ * transition is a compare-and-set, so concurrent event handlers agree on who performs each step.
+ */
+public class PlayerSession {
+
+    final long msb;
+    final long lsb;
+
+    private final UUID uuid;
+    private final String username;
+    private final AtomicReference<SessionState> state;
+
+    private final AtomicReference<ShigenHud> shigenHud = new AtomicReference<>();
+    // Set on the first ready, cleared by whoever sends the welcome messages
+    private final AtomicBoolean welcomePending = new AtomicBoolean();
+
+    PlayerSession(UUID uuid, String username, SessionState initialState) {
+        this.msb = uuid.getMostSignificantBits();
+        this.lsb = uuid.getLeastSignificantBits();
+        this.uuid = uuid;
+        this.username = username;
+        this.state = new AtomicReference<>(initialState);
+    }
+
+    public UUID getUuid() {
+        return uuid;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public SessionState getState() {
+        return state.get();
+    }
+
+    /**
+     * @return true if this call moved the session from {@code expected} to {@code next}
+     */
+    public boolean transition(SessionState expected, SessionState next) {
+        if (next.ordinal() <= expected.ordinal()) {
+            throw new IllegalArgumentException("Sessions cannot move from " + expected + " to " + next);
+        }
+        return state.compareAndSet(expected, next);
+    }
+
+    /**
+     * Moves the session to {@link SessionState#DISCONNECTED} from whatever state it is in.
+     *
+     * @return true if this call ended the session
+     */
+    boolean end() {
+        SessionState current;
+        do {
+            current = state.get();
+            if (current == SessionState.DISCONNECTED) {
+                return false;
+            }
+        } while (!state.compareAndSet(current, SessionState.DISCONNECTED));
+        shigenHud.set(null);
+        return true;
+    }
+
+    public void requestWelcome() {
+        welcomePending.set(true);
+    }
+
+    public boolean isWelcomePending() {
+        return welcomePending.get();
+    }
+
+    /**
+     * @return true if the welcome messages were pending and this caller is the one to send them
+     */
+    public boolean claimWelcome() {
+        return welcomePending.compareAndSet(true, false);
+    }
+
+    public @Nullable ShigenHud getShigenHud() {
+        return shigenHud.get();
+    }
+
+    /**
+     * Has no lasting effect once the session has ended, even if it ends while the HUD is being set.
+     */
+    public void setShigenHud(@Nullable ShigenHud shigenHud) {
+        this.shigenHud.set(shigenHud);
+        // Checked after the set, so either end() clears it or this sees the session already ended
+        if (state.get() == SessionState.DISCONNECTED) {
+            this.shigenHud.compareAndSet(shigenHud, null);
+        }
+    }
+
+    boolean matches(long msb, long lsb) {
+        return this.msb == msb && this.lsb == lsb;
+    }
+}
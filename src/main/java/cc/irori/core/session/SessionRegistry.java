@@ -0,0 +1,223 @@
+package cc.irori.core.session;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Online player sessions in an open-addressing table probed by the UUID's raw bits.
+ * <p>
+ * Writes are serialized, lookups never lock. Removed slots become tombstones and the table is
+ * rebuilt into a fresh array once tombstones pile up; readers that raced with a rebuild retry
+ * against the new array.
+ */
+public class SessionRegistry {
+
+    private static final PlayerSession TOMBSTONE = new PlayerSession(new UUID(0, 0), "", SessionState.DISCONNECTED);
+
+    private static final int MIN_CAPACITY = 64;
+
+    private volatile AtomicReferenceArray<PlayerSession> table = new AtomicReferenceArray<>(MIN_CAPACITY);
+
+    // Guarded by this
+    private int size;
+    private int tombstones;
+
+    public @Nullable PlayerSession get(UUID uuid) {
+        return get(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
+
+    public @Nullable PlayerSession get(long msb, long lsb) {
+        while (true) {
+            AtomicReferenceArray<PlayerSession> table = this.table;
+            PlayerSession session = find(table, msb, lsb);
+            if (session != null || table == this.table) {
+                return session;
+            }
+        }
+    }
+
+    /**
+     * Opens a session in {@link SessionState#CONNECTING}.
+     *
+     * @return the new session, or null if the player already has one
+     */
+    public @Nullable PlayerSession connect(UUID uuid, String username) {
+        return add(uuid, username, SessionState.CONNECTING);
+    }
+
+    /**
+     * Adds a session for a player that was already in a world, e.g. when the plugin starts late.
+     */
+    public @Nullable PlayerSession adopt(UUID uuid, String username) {
+        return add(uuid, username, SessionState.IN_WORLD);
+    }
+
+    /**
+     * Ends and removes the player's session.
+     *
+     * @return the session that was ended, or null if there was none or another thread ended it first
+     */
+    public @Nullable PlayerSession disconnect(UUID uuid) {
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+        PlayerSession session = get(msb, lsb);
+        if (session == null || !session.end()) {
+            return null;
+        }
+
+        synchronized (this) {
+            AtomicReferenceArray<PlayerSession> table = this.table;
+            int mask = table.length() - 1;
+            for (int slot = hash(msb, lsb) & mask; ; slot = (slot + 1) & mask) {
+                PlayerSession current = table.get(slot);
+                if (current == null) {
+                    break;
+                }
+                if (current == session) {
+                    table.set(slot, TOMBSTONE);
+                    size--;
+                    tombstones++;
+                    break;
+                }
+            }
+            if (tombstones > table.length() / 4) {
+                rebuild(table.length());
+            }
+        }
+        return session;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public int count(SessionState state) {
+        int count = 0;
+        AtomicReferenceArray<PlayerSession> table = this.table;
+        for (int i = 0; i < table.length(); i++) {
+            PlayerSession session = table.get(i);
+            if (session != null && session != TOMBSTONE && session.getState() == state) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public List<PlayerSession> sessions() {
+        List<PlayerSession> sessions = new ArrayList<>();
+        AtomicReferenceArray<PlayerSession> table = this.table;
+        for (int i = 0; i < table.length(); i++) {
+            PlayerSession session = table.get(i);
+            if (session != null && session != TOMBSTONE) {
+                sessions.add(session);
+            }
+        }
+        return sessions;
+    }
+
+    public synchronized void clear() {
+        for (PlayerSession session : sessions()) {
+            session.end();
+        }
+        table = new AtomicReferenceArray<>(MIN_CAPACITY);
+        size = 0;
+        tombstones = 0;
+    }
+
+    private synchronized @Nullable PlayerSession add(UUID uuid, String username, SessionState state) {
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+        int existingSlot = findSlot(table, msb, lsb);
+        if (existingSlot >= 0) {
+            // Reconnecting while the previous session is still being removed, take over its slot
+            if (table.get(existingSlot).getState() != SessionState.DISCONNECTED) {
+                return null;
+            }
+            PlayerSession session = new PlayerSession(uuid, username, state);
+            table.set(existingSlot, session);
+            return session;
+        }
+
+        if ((size + tombstones + 1) * 2 > table.length()) {
+            rebuild(size + 1 > table.length() / 4 ? table.length() * 2 : table.length());
+        }
+
+        PlayerSession session = new PlayerSession(uuid, username, state);
+        AtomicReferenceArray<PlayerSession> table = this.table;
+        int mask = table.length() - 1;
+        int slot = hash(msb, lsb) & mask;
+        while (true) {
+            PlayerSession current = table.get(slot);
+            if (current == null || current == TOMBSTONE) {
+                if (current == TOMBSTONE) {
+                    tombstones--;
+                }
+                table.set(slot, session);
+                break;
+            }
+            slot = (slot + 1) & mask;
+        }
+        size++;
+        return session;
+    }
+
+    private void rebuild(int capacity) {
+        AtomicReferenceArray<PlayerSession> old = table;
+        AtomicReferenceArray<PlayerSession> rebuilt = new AtomicReferenceArray<>(Math.max(MIN_CAPACITY, capacity));
+        int mask = rebuilt.length() - 1;
+        for (int i = 0; i < old.length(); i++) {
+            PlayerSession session = old.get(i);
+            if (session == null || session == TOMBSTONE) {
+                continue;
+            }
+            int slot = hash(session.msb, session.lsb) & mask;
+            while (rebuilt.get(slot) != null) {
+                slot = (slot + 1) & mask;
+            }
+            rebuilt.set(slot, session);
+        }
+        tombstones = 0;
+        table = rebuilt;
+    }
+
+    /**
+     * Reads each slot once, a slot can be tombstoned or taken over between two reads.
+     */
+    private static @Nullable PlayerSession find(AtomicReferenceArray<PlayerSession> table, long msb, long lsb) {
+        int mask = table.length() - 1;
+        for (int slot = hash(msb, lsb) & mask; ; slot = (slot + 1) & mask) {
+            PlayerSession session = table.get(slot);
+            if (session == null) {
+                return null;
+            }
+            if (session != TOMBSTONE && session.matches(msb, lsb)) {
+                return session;
+            }
+        }
+    }
+
+    /**
+     * Only for writers, which hold the lock.
+     */
+    private static int findSlot(AtomicReferenceArray<PlayerSession> table, long msb, long lsb) {
+        int mask = table.length() - 1;
+        for (int slot = hash(msb, lsb) & mask; ; slot = (slot + 1) & mask) {
+            PlayerSession session = table.get(slot);
+            if (session == null) {
+                return -1;
+            }
+            if (session != TOMBSTONE && session.matches(msb, lsb)) {
+                return slot;
+            }
+        }
+    }
+
+    private static int hash(long msb, long lsb) {
+        long h = msb * 0x9E3779B97F4A7C15L ^ lsb;
+        h ^= h >>> 32;
+        return (int) (h ^ (h >>> 16));
+    }
+}
@@ -0,0 +1,12 @@
+package cc.irori.core.session;
+
+public enum SessionState {
+    /** Connected, not in a world yet */
+    CONNECTING,
+    /** The client reported ready for the first time, join work is being done */
+    READY,
+    /** Fully joined */
+    IN_WORLD,
+    /** Gone, the session is no longer in the registry */
+    DISCONNECTED
+}
@@ -0,0 +1,101 @@
+package cc.irori.core.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.UUID;
+
+/**
+ * Insert-only open-addressing set of UUIDs stored as raw most/least significant bit pairs.
+ * <p>
+ * Writers are serialized; readers never lock. A slot's msb is written last with a release store and
+ * read first with an acquire load, so a reader that sees it also sees the lsb. A reader racing with an
+ * insert may miss the entry being inserted but never reports an entry that was not added.
+ * <p>
+ * UUIDs with a zero msb are not supported. Every RFC 4122 version sets bits in the msb, so only the nil
+ * UUID and hand-made ones are affected.
+ */
+public final class UuidSet {
+
+    private static final float LOAD_FACTOR = 0.5F;
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    // Two longs per slot: msb at 2i, lsb at 2i+1. A slot with a zero msb is empty or not published yet.
+    private volatile long[] table;
+    private int size;
+
+    public UuidSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        this.table = new long[capacity * 2];
+    }
+
+    public boolean contains(UUID uuid) {
+        return contains(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
+
+    public boolean contains(long msb, long lsb) {
+        if (msb == 0) {
+            return false;
+        }
+        long[] table = this.table;
+        int mask = (table.length >> 1) - 1;
+        int slot = hash(msb, lsb) & mask;
+        while (true) {
+            long slotMsb = (long) SLOTS.getAcquire(table, slot << 1);
+            if (slotMsb == 0) {
+                return false;
+            }
+            if (slotMsb == msb && table[(slot << 1) + 1] == lsb) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    public boolean add(UUID uuid) {
+        return add(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
+
+    public synchronized boolean add(long msb, long lsb) {
+        if (msb == 0) {
+            throw new IllegalArgumentException("UUIDs with a zero msb cannot be stored");
+        }
+        if (contains(msb, lsb)) {
+            return false;
+        }
+        if (size + 1 > (table.length >> 1) * LOAD_FACTOR) {
+            table = insert(new long[table.length * 2], table);
+        }
+        insert(table, msb, lsb);
+        size++;
+        return true;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private static long[] insert(long[] target, long[] source) {
+        for (int i = 0; i < source.length; i += 2) {
+            if (source[i] != 0) {
+                insert(target, source[i], source[i + 1]);
+            }
+        }
+        return target;
+    }
+
+    private static void insert(long[] table, long msb, long lsb) {
+        int mask = (table.length >> 1) - 1;
+        int slot = hash(msb, lsb) & mask;
+        while (table[slot << 1] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[(slot << 1) + 1] = lsb;
+        SLOTS.setRelease(table, slot << 1, msb);
+    }
+
+    private static int hash(long msb, long lsb) {
+        long h = msb * 0x9E3779B97F4A7C15L ^ lsb;
+        h ^= h >>> 32;
+        return (int) (h ^ (h >>> 16));
+    }
+}
@@ -0,0 +1,291 @@
+package cc.irori.core.maintenance;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonArrayLayoutTest {
+
+    private static final String ARRAY = "Teleporters";
+    private static final String KEY = "World";
+    private static final String[] WORLDS = {"default", "shigen1", "shigen2", "w\"q\\t", "été", "😀"};
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void splicedFileEqualsGsonFilteredFile() throws IOException {
+        Random random = new Random(42);
+        for (int round = 0; round < 300; round++) {
+            Path file = write(randomDocument(random));
+            JsonObject original = JsonParser.parseString(read(file)).getAsJsonObject();
+            String world = WORLDS[random.nextInt(WORLDS.length)];
+
+            JsonArrayLayout layout = JsonArrayLayout.scan(file, ARRAY, KEY);
+            JsonArrayLayout rewritten = layout.remove(file, matching(layout, world));
+
+            JsonObject expected = original.deepCopy();
+            JsonArray kept = new JsonArray();
+            for (JsonElement element : original.getAsJsonArray(ARRAY)) {
+                if (!(element.isJsonObject() && element.getAsJsonObject().has(KEY)
+                        && element.getAsJsonObject().get(KEY).isJsonPrimitive()
+                        && world.equals(element.getAsJsonObject().get(KEY).getAsString()))) {
+                    kept.add(element);
+                }
+            }
+            expected.add(ARRAY, kept);
+            assertEquals(expected, JsonParser.parseString(read(file)), "round " + round);
+
+            // The returned layout describes the new file exactly
+            assertTrue(rewritten.isCurrent(file));
+            assertEquals(JsonArrayLayout.scan(file, ARRAY, KEY).countByKey(), rewritten.countByKey());
+            assertEquals(kept.size(), rewritten.size());
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void decodesEscapedAndUnicodeKeys() throws IOException {
+        Path file = write("""
+                {"Teleporters": [
+                  {"World": "a\\"b\\\\c\\/d\\n"},
+                  {"World": "\\u00e9t\\u00E9"},
+                  {"World": "\\uD83D\\uDE00 smile"},
+                  {"World": "été"},
+                  {"Name": "\\u005d\\"]}", "World": "😀 smile"},
+                  {"Other": {"World": "nested"}},
+                  "not an object",
+                  {"World": 7}
+                ]}
+                """);
+
+        JsonArrayLayout layout = JsonArrayLayout.scan(file, ARRAY, KEY);
+
+        assertEquals(8, layout.size());
+        assertEquals("a\"b\\c/d\n", layout.key(0));
+        assertEquals("été", layout.key(1));
+        assertEquals("😀 smile", layout.key(2));
+        assertEquals("été", layout.key(3));
+        assertEquals("😀 smile", layout.key(4));
+        assertNull(layout.key(5));
+        assertNull(layout.key(6));
+        assertNull(layout.key(7));
+
+        layout.remove(file, matching(layout, "😀 smile"));
+        JsonArray remaining = JsonParser.parseString(read(file)).getAsJsonObject().getAsJsonArray(ARRAY);
+        assertEquals(6, remaining.size());
+        assertEquals("été", remaining.get(2).getAsJsonObject().get(KEY).getAsString());
+    }
+
+    @Test
+    void emptyArrayHasNoElements() throws IOException {
+        String json = "{\"Warps\": [1, 2], \"Teleporters\": [ \n ]}";
+        Path file = write(json);
+
+        JsonArrayLayout layout = JsonArrayLayout.scan(file, ARRAY, KEY);
+
+        assertEquals(0, layout.size());
+        assertTrue(layout.countByKey().isEmpty());
+        assertSame(layout, layout.remove(file, new BitSet()));
+        assertEquals(json, read(file));
+    }
+
+    @Test
+    void absentArrayHasNoElements() throws IOException {
+        String json = "{\"Warps\": [{\"World\": \"default\"}], \"Nested\": {\"Teleporters\": [{\"World\": \"default\"}]}}";
+        Path file = write(json);
+
+        JsonArrayLayout layout = JsonArrayLayout.scan(file, ARRAY, KEY);
+
+        assertEquals(0, layout.size());
+        assertTrue(layout.isCurrent(file));
+        assertEquals(0, JsonArrayLayout.scan(write("{}"), ARRAY, KEY).size());
+        assertEquals(json, read(file));
+    }
+
+    @Test
+    void missingFileIsEmpty() throws IOException {
+        Path file = dir.resolve("missing.json");
+
+        JsonArrayLayout layout = JsonArrayLayout.scan(file, ARRAY, KEY);
+
+        assertSame(JsonArrayLayout.EMPTY, layout);
+        assertTrue(layout.isCurrent(file));
+        write(file, "{}");
+        assertFalse(layout.isCurrent(file));
+    }
+
+    @Test
+    void removesFirstElement() throws IOException {
+        assertRemoved("{\"Teleporters\": [\n  {\"World\": \"a\"},\n  {\"World\": \"b\"},\n  {\"World\": \"c\"}\n]}", "a",
+                "{\"Teleporters\": [\n  {\"World\": \"b\"},\n  {\"World\": \"c\"}\n]}");
+    }
+
+    @Test
+    void removesLastElement() throws IOException {
+        assertRemoved("{\"Teleporters\": [\n  {\"World\": \"a\"},\n  {\"World\": \"b\"},\n  {\"World\": \"c\"}\n]}", "c",
+                "{\"Teleporters\": [\n  {\"World\": \"a\"},\n  {\"World\": \"b\"}\n]}");
+    }
+
+    @Test
+    void removesEveryElement() throws IOException {
+        assertRemoved("{\"Teleporters\": [\n  {\"World\": \"a\"},\n  {\"World\": \"a\"}\n], \"Version\": 2}", "a",
+                "{\"Teleporters\": [\n], \"Version\": 2}");
+    }
+
+    @Test
+    void keepsFormattingBetweenKeptElements() throws IOException {
+        assertRemoved("{ \"Teleporters\" :[ {\"World\":\"a\" , \"X\": 1.5e3},{\"World\": \"b\"},\n\n\t{ \"World\" : \"c\" }  ,{\"World\":\"b\"}]  }", "b",
+                "{ \"Teleporters\" :[ {\"World\":\"a\" , \"X\": 1.5e3},\n\n\t{ \"World\" : \"c\" }]  }");
+    }
+
+    @Test
+    void refusesToSpliceFileChangedSinceScan() throws IOException {
+        Path file = write("{\"Teleporters\": [{\"World\": \"a\"}, {\"World\": \"b\"}]}");
+        JsonArrayLayout layout = JsonArrayLayout.scan(file, ARRAY, KEY);
+        BitSet removed = matching(layout, "a");
+
+        String rewritten = "{\"Teleporters\": [{\"World\": \"b\"}, {\"World\": \"a\"}, {\"World\": \"c\"}]}";
+        write(file, rewritten);
+
+        assertFalse(layout.isCurrent(file));
+        assertThrows(JsonArrayLayout.StaleLayoutException.class, () -> layout.remove(file, removed));
+        assertEquals(rewritten, read(file));
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(List.of(file), files.toList(), "Temporary file left behind");
+        }
+    }
+
+    private void assertRemoved(String json, String world, String expected) throws IOException {
+        Path file = write(json);
+        JsonArrayLayout layout = JsonArrayLayout.scan(file, ARRAY, KEY);
+
+        JsonArrayLayout rewritten = layout.remove(file, matching(layout, world));
+
+        assertEquals(expected, read(file));
+        assertEquals(JsonParser.parseString(expected), JsonParser.parseString(read(file)));
+        assertFalse(rewritten.countByKey().containsKey(world));
+        assertTrue(rewritten.isCurrent(file));
+    }
+
+    private static BitSet matching(JsonArrayLayout layout, String world) {
+        BitSet removed = new BitSet();
+        for (int i = 0; i < layout.size(); i++) {
+            if (world.equals(layout.key(i))) {
+                removed.set(i);
+            }
+        }
+        return removed;
+    }
+
+    private static String randomDocument(Random random) {
+        StringBuilder json = new StringBuilder("{");
+        if (random.nextBoolean()) {
+            json.append("\"Before\": ").append(randomValue(random, 2)).append(',').append(space(random));
+        }
+        json.append("\"Teleporters\":").append(space(random)).append('[');
+        int elements = random.nextInt(8);
+        for (int i = 0; i < elements; i++) {
+            json.append(space(random));
+            if (random.nextInt(8) == 0) {
+                json.append(randomValue(random, 1));
+            } else {
+                List<String> fields = new ArrayList<>();
+                if (random.nextInt(6) != 0) {
+                    fields.add("\"World\":" + space(random) + quote(WORLDS[random.nextInt(WORLDS.length)], random));
+                }
+                int extra = random.nextInt(3);
+                for (int f = 0; f < extra; f++) {
+                    fields.add(space(random) + "\"F" + f + "\": " + randomValue(random, 2));
+                }
+                Collections.shuffle(fields, random);
+                json.append('{').append(String.join("," + space(random), fields)).append('}');
+            }
+            json.append(space(random));
+            if (i < elements - 1) {
+                json.append(',');
+            }
+        }
+        json.append(space(random)).append(']');
+        if (random.nextBoolean()) {
+            json.append(",\"After\": ").append(randomValue(random, 2));
+        }
+        return json.append(space(random)).append('}').toString();
+    }
+
+    private static String randomValue(Random random, int depth) {
+        int kind = random.nextInt(depth > 0 ? 6 : 4);
+        return switch (kind) {
+            case 0 -> quote(WORLDS[random.nextInt(WORLDS.length)] + "]},[{", random);
+            case 1 -> Integer.toString(random.nextInt(2000) - 1000);
+            case 2 -> random.nextBoolean() ? "true" : "null";
+            case 3 -> "-1.25e-3";
+            case 4 -> "{\"World\": " + randomValue(random, depth - 1) + ", \"k\":" + space(random) + randomValue(random, depth - 1) + "}";
+            default -> "[" + randomValue(random, depth - 1) + "," + space(random) + randomValue(random, depth - 1) + "]";
+        };
+    }
+
+    /**
+     * Encodes the string as JSON, escaping some characters that need no escape.
+     */
+    private static String quote(String value, Random random) {
+        StringBuilder quoted = new StringBuilder("\"");
+        value.codePoints().forEach(c -> {
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').appendCodePoint(c);
+            } else if (c > 0x7F && random.nextBoolean() || c == '/' && random.nextBoolean()) {
+                // Characters outside the BMP become an escaped surrogate pair
+                for (char unit : Character.toChars(c)) {
+                    quoted.append(String.format("\\u%04x", (int) unit));
+                }
+            } else {
+                quoted.appendCodePoint(c);
+            }
+        });
+        return quoted.append('"').toString();
+    }
+
+    private static String space(Random random) {
+        return switch (random.nextInt(5)) {
+            case 0 -> " ";
+            case 1 -> "\n  ";
+            case 2 -> "\r\n\t";
+            default -> "";
+        };
+    }
+
+    private Path write(String json) throws IOException {
+        Path file = Files.createTempFile(dir, "teleporters", ".json");
+        write(file, json);
+        return file;
+    }
+
+    private static void write(Path file, String json) throws IOException {
+        Files.writeString(file, json, StandardCharsets.UTF_8);
+    }
+
+    private static String read(Path file) throws IOException {
+        return Files.readString(file, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,174 @@
+package cc.irori.core.session;
+
+import cc.irori.core.ShigenHud;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Runs connects, transitions, HUD updates and disconnects on a small set of UUIDs from many threads
+ * at once, so the same players keep reconnecting while their previous sessions are being removed.
+ */
+class SessionRegistryStressTest {
+
+    private static final int THREADS = 8;
+    private static final int PLAYERS = 48;
+    private static final int OPERATIONS_PER_THREAD = 200_000;
+
+    @Test
+    void sessionsSurviveConcurrentJoinStorms() throws Exception {
+        SessionRegistry registry = new SessionRegistry();
+        List<UUID> uuids = new ArrayList<>();
+        for (int i = 0; i < PLAYERS; i++) {
+            uuids.add(UUID.randomUUID());
+        }
+        ShigenHud hud = mock(ShigenHud.class);
+
+        Set<PlayerSession> opened = ConcurrentHashMap.newKeySet();
+        Map<PlayerSession, AtomicInteger> ended = new ConcurrentHashMap<>();
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                workers.add(executor.submit(() -> {
+                    start.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                        UUID uuid = uuids.get(random.nextInt(PLAYERS));
+                        switch (random.nextInt(5)) {
+                            case 0 -> {
+                                PlayerSession session = registry.connect(uuid, uuid.toString());
+                                if (session != null) {
+                                    assertTrue(opened.add(session));
+                                }
+                            }
+                            case 1 -> {
+                                PlayerSession session = registry.get(uuid);
+                                if (session != null && session.transition(SessionState.CONNECTING, SessionState.READY)) {
+                                    session.transition(SessionState.READY, SessionState.IN_WORLD);
+                                }
+                            }
+                            case 2 -> {
+                                PlayerSession session = registry.get(uuid);
+                                if (session != null) {
+                                    session.setShigenHud(hud);
+                                }
+                            }
+                            default -> {
+                                PlayerSession session = registry.disconnect(uuid);
+                                if (session != null) {
+                                    ended.computeIfAbsent(session, s -> new AtomicInteger()).incrementAndGet();
+                                }
+                            }
+                        }
+
+                        PlayerSession current = registry.get(uuid);
+                        if (current != null) {
+                            assertEquals(uuid, current.getUuid());
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            // Watches the counters while the workers run, they may lag each other but never go out of range
+            Future<?> checker = executor.submit(() -> {
+                start.await();
+                while (running.get()) {
+                    int size = registry.size();
+                    assertTrue(size >= 0 && size <= PLAYERS, "size " + size);
+                    int live = 0;
+                    for (SessionState state : SessionState.values()) {
+                        if (state != SessionState.DISCONNECTED) {
+                            live += registry.count(state);
+                        }
+                    }
+                    assertTrue(live <= PLAYERS, "live sessions " + live);
+                }
+                return null;
+            });
+
+            start.countDown();
+            try {
+                for (Future<?> worker : workers) {
+                    worker.get(2, TimeUnit.MINUTES);
+                }
+            } finally {
+                running.set(false);
+            }
+            checker.get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Quiescent: the lock-free counts have to agree with size exactly
+        int live = 0;
+        for (SessionState state : SessionState.values()) {
+            if (state != SessionState.DISCONNECTED) {
+                live += registry.count(state);
+            }
+        }
+        assertEquals(registry.size(), live);
+        assertEquals(registry.size(), registry.sessions().size());
+        assertEquals(0, registry.count(SessionState.DISCONNECTED));
+
+        for (UUID uuid : uuids) {
+            PlayerSession session = registry.get(uuid);
+            if (session != null) {
+                assertNotNull(registry.disconnect(uuid));
+                ended.computeIfAbsent(session, s -> new AtomicInteger()).incrementAndGet();
+            }
+        }
+        assertEquals(0, registry.size());
+        assertTrue(registry.sessions().isEmpty());
+
+        assertTrue(opened.size() > PLAYERS, "The workload never reconnected a player");
+        // Checked afterwards, a session can be ended before its connect call has returned
+        assertTrue(opened.containsAll(ended.keySet()), "Ended a session that was never opened");
+        for (PlayerSession session : opened) {
+            assertEquals(SessionState.DISCONNECTED, session.getState());
+            AtomicInteger count = ended.get(session);
+            if (count == null || count.get() != 1) {
+                fail("Session of " + session.getUsername() + " ended " + (count == null ? 0 : count.get()) + " times");
+            }
+            assertNull(session.getShigenHud(), "HUD outlived its session");
+        }
+    }
+
+    @Test
+    void hudIsNotKeptBySessionThatEndedMeanwhile() {
+        SessionRegistry registry = new SessionRegistry();
+        UUID uuid = UUID.randomUUID();
+        PlayerSession session = registry.connect(uuid, "player");
+        assertNotNull(session);
+
+        assertEquals(session, registry.disconnect(uuid));
+        session.setShigenHud(mock(ShigenHud.class));
+
+        assertNull(session.getShigenHud());
+        assertNull(registry.disconnect(uuid));
+    }
+}